@@ -3,18 +3,28 @@ package de.flyndre.flengine.controller;
 import de.flyndre.flengine.datamodel.Board;
 import de.flyndre.flengine.datamodel.Move;
 import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.datamodel.enums.SearchAlgorithm;
 import de.flyndre.flengine.moveprovider.Endgame;
+import de.flyndre.flengine.moveprovider.mate.MateSearch;
+import de.flyndre.flengine.moveprovider.mcts.MonteCarloTreeSearch;
 import de.flyndre.flengine.moveprovider.minmax.MinMax;
 import de.flyndre.flengine.moveprovider.MoveProvider;
 import de.flyndre.flengine.moveprovider.Openings;
+import de.flyndre.flengine.moveprovider.PolyglotBook;
 
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
  * The centerpiece of Flengine.
  * Orchestrates the move-determination-process by retrieving moves from a list of {@code MoveProviders}.
+ * All providers are asked at the same time: the search starts at once and runs while the other providers
+ * wait for their remote services, whose moves are preferred if they arrive within the deadline of the provider.
  * @author David
  */
 public class Controller {
@@ -22,28 +32,132 @@ public class Controller {
     private static final Logger logger = Logger.getLogger(Controller.class.getName());
 
     /**
-     * A list of {@code MoveProviders} which the engine consults when finding moves.
-     * In this process, the {@code MoveProviders} are consulted in the given order.
+     * The {@code MoveProviders} which the provider pipeline can consult, by their names in its configuration.
      */
-    private static final List<MoveProvider> moveProviderHierarchy = Arrays.asList(
-            new Openings(),
-            new Endgame(),
-            new MinMax()
+    private static final Map<String, MoveProvider> moveProviders = Map.of(
+            "book", new PolyglotBook(),
+            "openings", new Openings(),
+            "endgame", new Endgame()
     );
 
+    /**
+     * The pipeline of {@code MoveProviders} which the engine consults when finding moves.
+     * In this process, the moves of the first {@code MoveProvider} in the order of the pipeline which knows any are used.
+     * The search provider chosen by the options is only used if none of them knows a move.
+     * It is loaded again if the options request another configuration.
+     */
+    private static ProviderPipeline pipeline = ProviderPipeline.load(ProviderPipeline.DEFAULT_PROFILE, moveProviders);
+
+    /**
+     * The {@code MoveProviders} which search a move if the hierarchy knows none, by the algorithm they implement.
+     */
+    private static final Map<SearchAlgorithm, MoveProvider> searchProviders = Map.of(
+            SearchAlgorithm.MINMAX, new MinMax(),
+            SearchAlgorithm.MCTS, new MonteCarloTreeSearch()
+    );
+
+    /**
+     * The {@code MoveProvider} which is consulted first if the options request a mate search.
+     */
+    private static final MoveProvider mateSearch = new MateSearch();
+
+    /**
+     * The ranked moves of the search providers for positions which were already requested.
+     * It is resized if the options request another size.
+     */
+    private static final MoveCache moveCache = new MoveCache(Options.DEFAULT_MOVE_CACHE_SIZE);
+
+    /**
+     * Lets concurrent requests for the same position share the search.
+     */
+    private static final SearchCoalescer searchCoalescer = new SearchCoalescer();
+
+    /**
+     * The threads which ask the {@code MoveProviders} in parallel. They are daemons, so that a request
+     * which was given up doesn't keep the engine running.
+     */
+    private static final ExecutorService providerExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "move-provider");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Informs all {@code MoveProviders} that the next positions belong to a new game.
+     */
+    public static void newGame() {
+        logger.info("Starting a new game.");
+        moveProviders.values().forEach(MoveProvider::newGame);
+        searchProviders.values().forEach(MoveProvider::newGame);
+        mateSearch.newGame();
+    }
+
+    /**
+     * Determines the move which the opponent is expected to answer with, so that the engine can ponder on it.
+     * @param board The current board.
+     * @param move The move the engine plays on the board.
+     * @param options An object containing options about the move obtainment process.
+     * @return The expected answer of the search provider or {@code null}, if it doesn't know one.
+     */
+    public static Move givePonderMove(Board board, Move move, Options options) {
+        Board newBoard = board.deepClone();
+        newBoard.playMove(move);
+        var principalVariation = searchProviders.get(options.getSearchAlgorithm()).getPrincipalVariation(newBoard, 1);
+        return principalVariation.isEmpty() ? null : principalVariation.get(0);
+    }
+
     /**
      * Determines the best move based on the given {@code Board} and {@code Options}.
+     * The strength of the search providers is limited by the budgets of the {@code Difficulty},
+     * so their best move is played. Only between the moves of the other providers the difficulty chooses at random.
      * @param board The current board.
      * @param options An object containing options about the move obtainment process.
      * @return A single {@code Move}, which the engine determined as best possible move or {@code null}, if no move was found.
      */
     public static Move giveMove(Board board, Options options) {
-        for (var moveProvider : moveProviderHierarchy) {
-            logger.info("Requesting moves from: [" + moveProvider.getClass().getName() + "]");
-            var moves = moveProvider.getRecommendedMoves(board, options);
-            if (moves != null && !moves.isEmpty()){
+        if (options.getMateSearch() > 0) {
+            // a found mate is always played, if there is none the usual providers are consulted
+            var mates = mateSearch.getRecommendedMoves(board, options);
+            if (!mates.isEmpty()) {
+                logger.info("Best move is [" + mates.get(0) + "] by [" + mateSearch.getClass().getName() + "]");
+                return mates.get(0);
+            }
+        }
+        var cachedMoves = getMoveCache(options).get(board, options);
+        if (cachedMoves != null) {
+            logger.info("Best move is [" + cachedMoves.get(0) + "] by [" + moveCache.getClass().getName() + "] (" +
+                    moveCache.getHits() + " hits, " + moveCache.getMisses() + " misses)");
+            return cachedMoves.get(0);
+        }
+        var stages = getPipeline(options).getStages().stream().filter(stage -> stage.accepts(board)).toList();
+        return giveMove(board, options, stages, searchProviders.get(options.getSearchAlgorithm()));
+    }
+
+    /**
+     * Determines the best move by asking the given stages and the search provider at the same time.
+     * The moves of the first stage in their order which knows any are preferred, if they arrive within its budget.
+     * Otherwise the best move of the search provider is played and its moves are cached.
+     * @param board The current board.
+     * @param options An object containing options about the move obtainment process.
+     * @param stages The stages which are asked before the search, in the order of their authority.
+     * @param searchProvider The provider which searches the move if no stage knows one.
+     * @return A single {@code Move}, which the engine determined as best possible move or {@code null}, if no move was found.
+     */
+    public static Move giveMove(Board board, Options options, List<ProviderStage> stages, MoveProvider searchProvider) {
+        // the search starts speculatively, so that it doesn't have to wait for the remote services
+        var search = searchCoalescer.search(board, options,
+                () -> requestMoves(searchProvider, board, options, Long.MAX_VALUE, null));
+        var lookups = stages.stream()
+                .map(stage -> requestMoves(stage.getMoveProvider(), board, options, stage.getBudget(), stage))
+                .toList();
+        for (int i = 0; i < lookups.size(); i++) {
+            var moveProvider = stages.get(i).getMoveProvider();
+            var moves = lookups.get(i).join();
+            if (!moves.isEmpty()) {
                 logger.info("Received: [" + moves.size() + " moves]");
-                Move bestMove =  moves.get(
+                // the search is not needed any more, unless it is shared with another request, for which it keeps running
+                search.cancel();
+                Move bestMove = moves.get(
                         (int) Math.floor(
                                 // Squaring the difficulty's int value to control which items are more probable:
                                 // (1) A higher exponent makes the front items of the list more probable.
@@ -62,7 +176,66 @@ public class Controller {
                 return bestMove;
             }
         }
+        var moves = search.getMoves().join();
+        moveCache.put(board, options, moves);
+        if (!moves.isEmpty()) {
+            logger.info("Received: [" + moves.size() + " moves]");
+            logger.info("Best move is [" + moves.get(0) + "] by [" + searchProvider.getClass().getName() + "]");
+            return moves.get(0);
+        }
         logger.warning("No possible moves were found.");
         return null;
     }
+
+    /**
+     * Returns the move cache, which is resized first if the options request another size.
+     */
+    private static MoveCache getMoveCache(Options options) {
+        if (moveCache.getCapacity() != options.getMoveCacheSize()) {
+            moveCache.resize(options.getMoveCacheSize());
+        }
+        return moveCache;
+    }
+
+    /**
+     * Returns the provider pipeline requested by the options, which is loaded if it is not the current one.
+     */
+    private static synchronized ProviderPipeline getPipeline(Options options) {
+        if (!pipeline.getConfiguration().equals(options.getProviderConfig())) {
+            logger.info("Loading the provider configuration [" + options.getProviderConfig() + "].");
+            pipeline = ProviderPipeline.load(options.getProviderConfig(), moveProviders);
+            pipeline.getStages().forEach(stage -> logger.info("Provider stage: " + stage));
+        }
+        return pipeline;
+    }
+
+    /**
+     * Asks a {@code MoveProvider} for its moves on another thread.
+     * Every provider gets its own copy of the board, because the rules change it temporarily while generating moves.
+     * @param budget the milliseconds after which the moves of the provider are not waited for any more.
+     * @param stage the stage of the provider in the pipeline, which records the latency of the request, or null.
+     * @return the moves of the provider, which are empty if it fails or misses its budget.
+     */
+    private static CompletableFuture<List<Move>> requestMoves(MoveProvider moveProvider, Board board, Options options,
+                                                              long budget, ProviderStage stage) {
+        Board providerBoard = board.deepClone();
+        long startTime = System.currentTimeMillis();
+        var request = CompletableFuture.supplyAsync(() -> {
+                    logger.info("Requesting moves from: [" + moveProvider.getClass().getName() + "]");
+                    var moves = moveProvider.getRecommendedMoves(providerBoard, options);
+                    return moves != null ? moves : List.<Move>of();
+                }, providerExecutor);
+        // the latency is recorded when the provider answers, even if the controller didn't wait for it
+        if (stage != null) {
+            request.whenComplete((moves, e) -> stage.recordRequest(System.currentTimeMillis() - startTime, e != null));
+        }
+        request = request.exceptionally(e -> {
+            logger.warning("Request to [" + moveProvider.getClass().getName() + "] failed: " + e.getMessage());
+            return List.of();
+        });
+        if (budget < Long.MAX_VALUE) {
+            request = request.completeOnTimeout(List.of(), budget, TimeUnit.MILLISECONDS);
+        }
+        return request;
+    }
 }
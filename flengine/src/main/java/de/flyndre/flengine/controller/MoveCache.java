@@ -0,0 +1,131 @@
+package de.flyndre.flengine.controller;
+
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Options;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of the ranked moves which the search providers found, so that a position which is requested
+ * again is answered at once. The entries are keyed by the {@code SearchKey} of the search and keep the depth
+ * they were searched with. A request is served by an entry which was searched at least as deep.
+ * Only searches which have a key are cached, and only if they were not stopped.
+ * If the cache is full, the least recently used entry is dropped.
+ */
+public class MoveCache {
+
+    private int capacity;
+    private long hits = 0;
+    private long misses = 0;
+    private final LinkedHashMap<SearchKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SearchKey, Entry> eldest) {
+            return size() > capacity;
+        }
+    };
+
+    /**
+     * Creates a new cache.
+     * @param capacity the maximal number of positions. The value 0 disables the cache.
+     */
+    public MoveCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Looks up the moves of a position.
+     * @param board the position.
+     * @param options the options of the calculation.
+     * @return the ranked moves of the position, or null if the cache doesn't know it deep enough or the options
+     * don't allow a cached result.
+     */
+    public synchronized List<Move> get(Board board, Options options) {
+        SearchKey key = SearchKey.of(board, options);
+        if (capacity == 0 || key == null) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null || entry.depth < SearchKey.getDepth(options)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.moves;
+    }
+
+    /**
+     * Stores the moves of a position, unless the cache already knows it from a deeper search.
+     * @param board the position.
+     * @param options the options of the calculation, which must not have been stopped.
+     * @param moves the ranked moves of the search.
+     */
+    public synchronized void put(Board board, Options options, List<Move> moves) {
+        SearchKey key = SearchKey.of(board, options);
+        if (capacity == 0 || key == null || options.isStopped() || moves.isEmpty()) {
+            return;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null || entry.depth <= SearchKey.getDepth(options)) {
+            entries.put(key, new Entry(List.copyOf(moves), SearchKey.getDepth(options)));
+        }
+    }
+
+    /**
+     * Changes the maximal number of positions. If the cache is smaller than before, the least recently used
+     * entries are dropped.
+     * @param capacity the maximal number of positions. The value 0 disables the cache.
+     */
+    public synchronized void resize(int capacity) {
+        this.capacity = capacity;
+        var iterator = entries.keySet().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Forgets all positions. The counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of lookups which were answered by the cache.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups which had to search, because the cache didn't know the position deep enough.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * The ranked moves of a position and the depth they were searched with.
+     */
+    private static class Entry {
+        private final List<Move> moves;
+        private final int depth;
+
+        private Entry(List<Move> moves, int depth) {
+            this.moves = moves;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package de.flyndre.flengine.controller;
+
+import de.flyndre.flengine.moveprovider.MoveProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * The ordered {@code ProviderStage}s which the {@code Controller} asks for moves before it uses the search.
+ * The pipeline is configured by properties, which are either one of the bundled profiles or a file:
+ * <ul>
+ *     <li>{@code providers}: the names of the providers in the order of their authority, separated by commas.</li>
+ *     <li>{@code <name>.enabled}: whether the provider is asked at all, true by default.</li>
+ *     <li>{@code <name>.budget}: the latency budget in milliseconds, by default the deadline of the provider.</li>
+ *     <li>{@code <name>.minMove} and {@code <name>.maxMove}: the range of full move numbers of the board, as in the fen string.</li>
+ *     <li>{@code <name>.minPieces} and {@code <name>.maxPieces}: the range of pieces on the board.</li>
+ * </ul>
+ * The bundled profiles are "default", "offline" without any remote service, "lowlatency" with short budgets
+ * and "analysis" with long budgets.
+ */
+public class ProviderPipeline {
+
+    /**
+     * The profile which is used if the options don't request another configuration.
+     */
+    public static final String DEFAULT_PROFILE = "default";
+
+    private static final Logger logger = Logger.getLogger(ProviderPipeline.class.getName());
+
+    private final String configuration;
+    private final List<ProviderStage> stages;
+
+    private ProviderPipeline(String configuration, List<ProviderStage> stages) {
+        this.configuration = configuration;
+        this.stages = stages;
+    }
+
+    /**
+     * Loads a pipeline. If the configuration can't be read, the stages of the default profile are used instead,
+     * but the pipeline keeps the requested configuration, so that it is not loaded again for the same request.
+     * @param configuration the name of a bundled profile or the path of a properties file.
+     * @param moveProviders the providers which the configuration can use, by their names.
+     * @return the pipeline.
+     */
+    public static ProviderPipeline load(String configuration, Map<String, MoveProvider> moveProviders) {
+        Properties properties = new Properties();
+        try (InputStream profile = ProviderPipeline.class.getResourceAsStream("/providers/" + configuration + ".properties")) {
+            if (profile != null) {
+                properties.load(profile);
+            } else {
+                try (Reader file = Files.newBufferedReader(Path.of(configuration))) {
+                    properties.load(file);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Could not load the provider configuration [" + configuration + "], using the default profile: " + e.getMessage());
+            return new ProviderPipeline(configuration,
+                    DEFAULT_PROFILE.equals(configuration) ? List.of() : load(DEFAULT_PROFILE, moveProviders).getStages());
+        }
+        return new ProviderPipeline(configuration, parse(properties, moveProviders));
+    }
+
+    /**
+     * Creates the stages described by the properties.
+     * @param properties the configuration as described above.
+     * @param moveProviders the providers which the configuration can use, by their names.
+     * @return the stages in the order of the configuration.
+     */
+    public static List<ProviderStage> parse(Properties properties, Map<String, MoveProvider> moveProviders) {
+        List<ProviderStage> stages = new ArrayList<>();
+        for (String name : properties.getProperty("providers", "").split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            MoveProvider moveProvider = moveProviders.get(name);
+            if (moveProvider == null) {
+                logger.warning("The provider [" + name + "] is unknown.");
+                continue;
+            }
+            try {
+                stages.add(new ProviderStage(name, moveProvider,
+                        Boolean.parseBoolean(properties.getProperty(name + ".enabled", "true")),
+                        Long.parseLong(properties.getProperty(name + ".budget", String.valueOf(moveProvider.getDeadline()))),
+                        Integer.parseInt(properties.getProperty(name + ".minMove", "0")),
+                        Integer.parseInt(properties.getProperty(name + ".maxMove", String.valueOf(Integer.MAX_VALUE))),
+                        Integer.parseInt(properties.getProperty(name + ".minPieces", "0")),
+                        Integer.parseInt(properties.getProperty(name + ".maxPieces", "32"))));
+            } catch (NumberFormatException e) {
+                logger.warning("The configuration of the provider [" + name + "] is invalid: " + e.getMessage());
+            }
+        }
+        return stages;
+    }
+
+    /**
+     * @return the name of the profile or the path of the file the pipeline was requested with,
+     * even if the default profile had to be used instead.
+     */
+    public String getConfiguration() {
+        return configuration;
+    }
+
+    public List<ProviderStage> getStages() {
+        return stages;
+    }
+}
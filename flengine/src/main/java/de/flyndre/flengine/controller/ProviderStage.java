@@ -0,0 +1,162 @@
+package de.flyndre.flengine.controller;
+
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.moveprovider.MoveProvider;
+
+import java.util.logging.Logger;
+
+/**
+ * A {@code MoveProvider} in the {@code ProviderPipeline} together with its configuration and its health.
+ * The configuration decides whether the provider is asked for a board: it has to be enabled and the board has to be
+ * in its range of move numbers and pieces. The provider has a latency budget, after which the controller doesn't
+ * wait for its moves any more.
+ * The health keeps the latencies of the last requests. A provider which exceeds its budget several times in a row
+ * is skipped for a number of requests, then it is tried again.
+ */
+public class ProviderStage {
+
+    /**
+     * Number of requests in a row which have to exceed the budget before the provider is skipped.
+     */
+    static final int MISS_LIMIT = 3;
+    /**
+     * Number of requests for which an unhealthy provider is skipped, before it gets another chance.
+     */
+    static final int SKIPPED_REQUESTS = 16;
+    /**
+     * Number of requests whose latencies are kept for the statistics.
+     */
+    private static final int WINDOW = 16;
+
+    private static final Logger logger = Logger.getLogger(ProviderStage.class.getName());
+
+    private final String name;
+    private final MoveProvider moveProvider;
+    private final boolean enabled;
+    private final long budget;
+    private final int minMove;
+    private final int maxMove;
+    private final int minPieces;
+    private final int maxPieces;
+
+    /**
+     * The latencies of the last requests in milliseconds, as ring buffer.
+     */
+    private final long[] latencies = new long[WINDOW];
+    private int requests = 0;
+    private int misses = 0;
+    private int missesInRow = 0;
+    private int remainingSkips = 0;
+
+    /**
+     * Creates a new stage.
+     * @param name the name of the provider in the configuration.
+     * @param moveProvider the provider.
+     * @param enabled whether the provider is asked at all.
+     * @param budget the milliseconds the controller waits for the moves of the provider.
+     * @param minMove the first full move number of the board at which the provider is asked, as in the fen string.
+     * @param maxMove the last full move number of the board at which the provider is asked.
+     * @param minPieces the minimal number of pieces on the board.
+     * @param maxPieces the maximal number of pieces on the board.
+     */
+    public ProviderStage(String name, MoveProvider moveProvider, boolean enabled, long budget,
+                         int minMove, int maxMove, int minPieces, int maxPieces) {
+        this.name = name;
+        this.moveProvider = moveProvider;
+        this.enabled = enabled;
+        this.budget = budget;
+        this.minMove = minMove;
+        this.maxMove = maxMove;
+        this.minPieces = minPieces;
+        this.maxPieces = maxPieces;
+    }
+
+    /**
+     * Decides whether the provider is asked for the given board. A skipped request of an unhealthy provider
+     * counts towards its next chance.
+     * @param board the current board.
+     * @return true if the provider is enabled, healthy and applicable to the board.
+     */
+    public synchronized boolean accepts(Board board) {
+        if (!enabled || board.getMoveCounter() < minMove || board.getMoveCounter() > maxMove ||
+                board.pieceCount() < minPieces || board.pieceCount() > maxPieces) {
+            return false;
+        }
+        if (remainingSkips > 0) {
+            remainingSkips--;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds a finished request to the health of the provider.
+     * @param latency the milliseconds the provider needed, even if the controller didn't wait for them.
+     * @param failed whether the provider failed instead of returning moves.
+     */
+    public synchronized void recordRequest(long latency, boolean failed) {
+        latencies[requests % WINDOW] = latency;
+        requests++;
+        if (failed || latency > budget) {
+            misses++;
+            missesInRow++;
+            if (missesInRow >= MISS_LIMIT) {
+                logger.warning("Provider [" + name + "] exceeded its budget of [" + budget + " ms] " + missesInRow +
+                        " times in a row, skipping it for the next [" + SKIPPED_REQUESTS + "] requests.");
+                remainingSkips = SKIPPED_REQUESTS;
+                // the next request after the skipped ones decides at once whether it is still unhealthy
+                missesInRow = MISS_LIMIT - 1;
+            }
+        } else {
+            missesInRow = 0;
+        }
+    }
+
+    /**
+     * @return the average latency of the last requests in milliseconds, or 0 if there were none.
+     */
+    public synchronized long getAverageLatency() {
+        int count = Math.min(requests, WINDOW);
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += latencies[i];
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @return the number of all requests of the provider.
+     */
+    public synchronized int getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the number of requests which failed or exceeded the budget.
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public MoveProvider getMoveProvider() {
+        return moveProvider;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return name + " (enabled " + enabled + ", budget " + budget + " ms, requests " + requests +
+                ", misses " + misses + ", average latency " + getAverageLatency() + " ms)";
+    }
+}
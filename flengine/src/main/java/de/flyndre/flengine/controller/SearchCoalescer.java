@@ -0,0 +1,144 @@
+package de.flyndre.flengine.controller;
+
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Options;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent requests for the same position share one search instead of each starting its own.
+ * A request attaches to the running search of the same {@code SearchKey} if that search goes at least as deep,
+ * even if it started before. Searches without a key, like the ones on the clock, are never shared.
+ * If the shared search was stopped, its moves are incomplete, so the attached requests search on their own.
+ * A shared search is only cancelled when all of its requests have cancelled it.
+ */
+public class SearchCoalescer {
+
+    /**
+     * The running searches which requests can attach to.
+     */
+    private final Map<SearchKey, Flight> flights = new HashMap<>();
+
+    /**
+     * Starts a search or attaches to a running one of the same position.
+     * @param board the position of the search.
+     * @param options the options of the calculation.
+     * @param search starts the search of the request on its own.
+     * @return the search of the request.
+     */
+    public synchronized Search search(Board board, Options options, Supplier<CompletableFuture<List<Move>>> search) {
+        SearchKey key = SearchKey.of(board, options);
+        if (key == null) {
+            return new Search(this, search.get(), options, null, false);
+        }
+        Flight flight = flights.get(key);
+        if (flight != null && flight.depth >= SearchKey.getDepth(options)) {
+            flight.requests++;
+            CompletableFuture<List<Move>> moves = flight.moves.thenCompose(sharedMoves ->
+                    flight.options.isStopped() && !options.isStopped() ? search.get() : CompletableFuture.completedFuture(sharedMoves));
+            return new Search(this, moves, options, flight, true);
+        }
+        Flight ownFlight = new Flight(key, search.get(), options, SearchKey.getDepth(options));
+        flights.put(key, ownFlight);
+        ownFlight.moves.whenComplete((moves, e) -> finish(key, ownFlight));
+        return new Search(this, ownFlight.moves, options, ownFlight, false);
+    }
+
+    /**
+     * @return the number of searches which requests can currently attach to.
+     */
+    public synchronized int size() {
+        return flights.size();
+    }
+
+    private synchronized void finish(SearchKey key, Flight flight) {
+        flights.remove(key, flight);
+    }
+
+    /**
+     * Gives up the search of a request. The search of a flight is only stopped if no other request waits for it,
+     * and then no request can attach to it any more.
+     */
+    private synchronized void cancel(Search search) {
+        if (search.flight == null) {
+            search.options.cancel();
+            return;
+        }
+        // an attached request only stops the search it would start on its own if the flight was stopped
+        if (search.shared) {
+            search.options.cancel();
+        }
+        if (--search.flight.requests == 0) {
+            search.flight.options.cancel();
+            flights.remove(search.flight.key, search.flight);
+        }
+    }
+
+    /**
+     * The search of a request.
+     */
+    public static class Search {
+        private final SearchCoalescer coalescer;
+        private final CompletableFuture<List<Move>> moves;
+        private final Options options;
+        private final Flight flight;
+        private final boolean shared;
+
+        private Search(SearchCoalescer coalescer, CompletableFuture<List<Move>> moves, Options options, Flight flight,
+                       boolean shared) {
+            this.coalescer = coalescer;
+            this.moves = moves;
+            this.options = options;
+            this.flight = flight;
+            this.shared = shared;
+        }
+
+        /**
+         * @return the ranked moves of the search.
+         */
+        public CompletableFuture<List<Move>> getMoves() {
+            return moves;
+        }
+
+        /**
+         * @return true if the request attached to the search of another request, which keeps running for that one.
+         */
+        public boolean isShared() {
+            return shared;
+        }
+
+        /**
+         * Tells the search that the request doesn't need its moves any more.
+         * A search which other requests share keeps running for them.
+         */
+        public void cancel() {
+            coalescer.cancel(this);
+        }
+    }
+
+    /**
+     * A running search together with the options it was started with and the requests waiting for it.
+     */
+    private static class Flight {
+        private final SearchKey key;
+        private final CompletableFuture<List<Move>> moves;
+        private final Options options;
+        private final int depth;
+        /**
+         * The number of requests which haven't cancelled the search.
+         */
+        private int requests = 1;
+
+        private Flight(SearchKey key, CompletableFuture<List<Move>> moves, Options options, int depth) {
+            this.key = key;
+            this.moves = moves;
+            this.options = options;
+            this.depth = depth;
+        }
+    }
+}
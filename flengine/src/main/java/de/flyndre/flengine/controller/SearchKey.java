@@ -0,0 +1,69 @@
+package de.flyndre.flengine.controller;
+
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.datamodel.enums.Difficulty;
+import de.flyndre.flengine.datamodel.enums.SearchAlgorithm;
+
+import java.util.Objects;
+
+/**
+ * Identifies the result of a search by the Zobrist hash of the position and the options which change it.
+ * The depth is not part of the key, because a deeper search answers a shallower request as well.
+ * Only searches which are limited by their depth have a key: the result of a search on the clock, of an infinite,
+ * pondering or mate search depends on more than the position.
+ */
+class SearchKey {
+
+    private final long hash;
+    private final SearchAlgorithm searchAlgorithm;
+    private final Difficulty difficulty;
+    private final boolean useNnue;
+
+    private SearchKey(Board board, Options options) {
+        this.hash = board.getHash();
+        this.searchAlgorithm = options.getSearchAlgorithm();
+        this.difficulty = options.getDifficulty();
+        this.useNnue = options.isUseNnue();
+    }
+
+    /**
+     * @param board the position of the search.
+     * @param options the options of the calculation.
+     * @return the key of the search, or null if its result depends on more than the position and the options.
+     */
+    static SearchKey of(Board board, Options options) {
+        long time = board.getNextColor() == Color.WHITE ? options.getWhiteTime() : options.getBlackTime();
+        if (options.getMateSearch() > 0 || options.isInfinite() || options.isPondering() ||
+                options.getMoveTime() > 0 || time > 0) {
+            return null;
+        }
+        return new SearchKey(board, options);
+    }
+
+    /**
+     * @param options the options of the calculation.
+     * @return the depth of the search, which is the number of playouts for the Monte Carlo tree search.
+     */
+    static int getDepth(Options options) {
+        Difficulty difficulty = options.getDifficulty();
+        return options.getSearchAlgorithm() == SearchAlgorithm.MCTS ?
+                Math.min(options.getMctsPlayouts(), difficulty.getMaxPlayouts()) :
+                Math.min(options.getRecursionDepth(), difficulty.getMaxDepth());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) return false;
+        if (obj.getClass() != this.getClass()) return false;
+        SearchKey key = (SearchKey) obj;
+        return hash == key.hash && searchAlgorithm == key.searchAlgorithm && difficulty == key.difficulty &&
+                useNnue == key.useNnue;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hash, searchAlgorithm, difficulty, useNnue);
+    }
+}
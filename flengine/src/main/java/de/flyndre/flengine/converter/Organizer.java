@@ -38,7 +38,8 @@ public class Organizer {
 
     /**
      * Calculate the next best move to be executed on the actual board.
-     * @return a completable future that returns the move in string notation when the calculation is done.
+     * @return a completable future that returns the move in string notation when the calculation is done,
+     * followed by the move to ponder on if the ponder option is set and the expected answer is known.
      */
     public CompletableFuture<String> calculateNextMoveAsync() {
         CompletableFuture<String> completableFuture = new CompletableFuture<>();
@@ -50,14 +51,23 @@ public class Organizer {
         this.board = Converter.convertStringToBoard(boardString);
         moveStrings.forEach(move -> board.playMove(Converter.convertStringToMove(move)));
         Move bestMove = Controller.giveMove(board,options);
+        Move ponderMove = options.isPonder() ? Controller.givePonderMove(board, bestMove, options) : null;
+        //the result of a ponder search is only sent after the ponderhit or stop of the gui
+        try {
+            options.awaitPonderEnd();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         //maybe execute the move on the board to provide persistent.
-        return Converter.convertMoveToString(bestMove);
+        String result = Converter.convertMoveToString(bestMove);
+        return ponderMove == null ? result : result + " ponder " + Converter.convertMoveToString(ponderMove);
     }
 
     /**
-     * stops the executor service with the calculation tasks
+     * stops the running calculation, which returns its best move so far, and the executor service with the calculation tasks
      */
     public void stopCalculations(){
+        options.stop();
         executor.shutdownNow();
     }
 }
@@ -1,7 +1,9 @@
 package de.flyndre.flengine.converter;
 
+import de.flyndre.flengine.controller.Controller;
 import de.flyndre.flengine.datamodel.Options;
 import de.flyndre.flengine.datamodel.enums.Difficulty;
+import de.flyndre.flengine.datamodel.enums.SearchAlgorithm;
 import de.flyndre.flengine.logging.LogChannelManager;
 import de.flyndre.flengine.logging.LogChannelType;
 
@@ -43,6 +45,10 @@ public class RequestHandler {
      * It stores the values of all options currently set over uci and is given to the organizer objects on creation.
      */
     private Options options;
+    /**
+     * The options of the last go command, which are changed by ponderhit and stop while the calculation runs.
+     */
+    private Options calculationOptions;
 
     /**
      * Startup for the chess engine.
@@ -79,6 +85,54 @@ public class RequestHandler {
                         StringBuilder recursiveDepthOptions = new StringBuilder("option name RecursiveDepth type spin default " + this.options.getRecursionDepth() + " min 1 max 10");
                         StdoutWriter.writeToStdout(recursiveDepthOptions.toString());
                         logger.info("Indicated recursive depth option to gui: " + recursiveDepthOptions.toString());
+                        ////split depth
+                        StringBuilder splitDepthOptions = new StringBuilder("option name SplitDepth type spin default " + this.options.getSplitDepth() + " min 1 max 10");
+                        StdoutWriter.writeToStdout(splitDepthOptions.toString());
+                        logger.info("Indicated split depth option to gui: " + splitDepthOptions.toString());
+                        ////search algorithm
+                        StringBuilder searchAlgorithmOptions = new StringBuilder("option name SearchAlgorithm type combo default " + this.options.getSearchAlgorithm().toReadableString());
+                        for(SearchAlgorithm e: SearchAlgorithm.values()){
+                            searchAlgorithmOptions.append(" var ").append(e.toReadableString());
+                        }
+                        StdoutWriter.writeToStdout(searchAlgorithmOptions.toString());
+                        logger.info("Indicated search algorithm option to gui: " + searchAlgorithmOptions.toString());
+                        ////mcts playouts
+                        StringBuilder mctsPlayoutsOptions = new StringBuilder("option name MctsPlayouts type spin default " + this.options.getMctsPlayouts() + " min 1 max 1000000");
+                        StdoutWriter.writeToStdout(mctsPlayoutsOptions.toString());
+                        logger.info("Indicated mcts playouts option to gui: " + mctsPlayoutsOptions.toString());
+                        ////hash size
+                        StringBuilder hashOptions = new StringBuilder("option name Hash type spin default " + this.options.getHashSize() + " min 1 max 1024");
+                        StdoutWriter.writeToStdout(hashOptions.toString());
+                        logger.info("Indicated hash option to gui: " + hashOptions.toString());
+                        ////eval cache size
+                        StringBuilder evalCacheOptions = new StringBuilder("option name EvalCache type spin default " + this.options.getEvalCacheSize() + " min 1 max 256");
+                        StdoutWriter.writeToStdout(evalCacheOptions.toString());
+                        logger.info("Indicated eval cache option to gui: " + evalCacheOptions.toString());
+                        ////move cache size
+                        StringBuilder moveCacheOptions = new StringBuilder("option name MoveCache type spin default " + this.options.getMoveCacheSize() + " min 0 max 1000000");
+                        StdoutWriter.writeToStdout(moveCacheOptions.toString());
+                        logger.info("Indicated move cache option to gui: " + moveCacheOptions.toString());
+                        ////neural network evaluation
+                        StringBuilder useNnueOptions = new StringBuilder("option name UseNNUE type check default " + this.options.isUseNnue());
+                        StdoutWriter.writeToStdout(useNnueOptions.toString());
+                        logger.info("Indicated use nnue option to gui: " + useNnueOptions.toString());
+                        ////provider configuration
+                        StringBuilder providerConfigOptions = new StringBuilder("option name ProviderConfig type string default " + this.options.getProviderConfig());
+                        StdoutWriter.writeToStdout(providerConfigOptions.toString());
+                        logger.info("Indicated provider config option to gui: " + providerConfigOptions.toString());
+                        ////opening book
+                        StringBuilder bookFileOptions = new StringBuilder("option name BookFile type string default " +
+                                (this.options.getBookFile().isEmpty() ? "<empty>" : this.options.getBookFile()));
+                        StdoutWriter.writeToStdout(bookFileOptions.toString());
+                        logger.info("Indicated book file option to gui: " + bookFileOptions.toString());
+                        ////ponder
+                        StringBuilder ponderOptions = new StringBuilder("option name Ponder type check default " + this.options.isPonder());
+                        StdoutWriter.writeToStdout(ponderOptions.toString());
+                        logger.info("Indicated ponder option to gui: " + ponderOptions.toString());
+                        ////multi pv
+                        StringBuilder multiPvOptions = new StringBuilder("option name MultiPV type spin default " + this.options.getMultiPv() + " min 1 max 64");
+                        StdoutWriter.writeToStdout(multiPvOptions.toString());
+                        logger.info("Indicated multi pv option to gui: " + multiPvOptions.toString());
                         //uciok
                         StdoutWriter.writeToStdout("uciok");
                         logger.info("Finished initial communication with gui.");
@@ -102,6 +156,67 @@ public class RequestHandler {
                                     this.options.setRecursionDepth(recursiveDepth);
                                     logger.info("Changed option recursiveDepth to [" + recursiveDepth + "].");
                                 }
+                                case "SplitDepth" -> {
+                                    int splitDepth = Integer.parseInt(splittedInput[4]);
+                                    this.options.setSplitDepth(splitDepth);
+                                    logger.info("Changed option splitDepth to [" + splitDepth + "].");
+                                }
+                                case "SearchAlgorithm" -> {
+                                    try {
+                                        var searchAlgorithm = SearchAlgorithm.valueOf(splittedInput[4].toUpperCase());
+                                        this.options.setSearchAlgorithm(searchAlgorithm);
+                                        logger.info("Changed option searchAlgorithm to [" + searchAlgorithm.toReadableString() + "].");
+                                    } catch (IllegalArgumentException e) {
+                                        logger.warning("The value [" + splittedInput[4] + "] is not a valid search algorithm.");
+                                    }
+                                }
+                                case "MctsPlayouts" -> {
+                                    int mctsPlayouts = Integer.parseInt(splittedInput[4]);
+                                    this.options.setMctsPlayouts(mctsPlayouts);
+                                    logger.info("Changed option mctsPlayouts to [" + mctsPlayouts + "].");
+                                }
+                                case "Hash" -> {
+                                    int hashSize = Integer.parseInt(splittedInput[4]);
+                                    this.options.setHashSize(hashSize);
+                                    logger.info("Changed option hashSize to [" + hashSize + "].");
+                                }
+                                case "EvalCache" -> {
+                                    int evalCacheSize = Integer.parseInt(splittedInput[4]);
+                                    this.options.setEvalCacheSize(evalCacheSize);
+                                    logger.info("Changed option evalCacheSize to [" + evalCacheSize + "].");
+                                }
+                                case "MoveCache" -> {
+                                    int moveCacheSize = Integer.parseInt(splittedInput[4]);
+                                    this.options.setMoveCacheSize(moveCacheSize);
+                                    logger.info("Changed option moveCacheSize to [" + moveCacheSize + "].");
+                                }
+                                case "UseNNUE" -> {
+                                    boolean useNnue = Boolean.parseBoolean(splittedInput[4]);
+                                    this.options.setUseNnue(useNnue);
+                                    logger.info("Changed option useNnue to [" + useNnue + "].");
+                                }
+                                case "ProviderConfig" -> {
+                                    //a path may contain spaces
+                                    String providerConfig = String.join(" ", Arrays.copyOfRange(splittedInput, 4, splittedInput.length));
+                                    this.options.setProviderConfig(providerConfig);
+                                    logger.info("Changed option providerConfig to [" + providerConfig + "].");
+                                }
+                                case "BookFile" -> {
+                                    //a path may contain spaces, "<empty>" disables the book
+                                    String bookFile = String.join(" ", Arrays.copyOfRange(splittedInput, 4, splittedInput.length));
+                                    this.options.setBookFile(bookFile.equals("<empty>") ? "" : bookFile);
+                                    logger.info("Changed option bookFile to [" + this.options.getBookFile() + "].");
+                                }
+                                case "Ponder" -> {
+                                    boolean ponder = Boolean.parseBoolean(splittedInput[4]);
+                                    this.options.setPonder(ponder);
+                                    logger.info("Changed option ponder to [" + ponder + "].");
+                                }
+                                case "MultiPV" -> {
+                                    int multiPv = Integer.parseInt(splittedInput[4]);
+                                    this.options.setMultiPv(multiPv);
+                                    logger.info("Changed option multiPv to [" + multiPv + "].");
+                                }
                                 default -> logger.warning("The value [" + splittedInput[4] + "] is not a supported option.");
                             }
                         }
@@ -112,12 +227,16 @@ public class RequestHandler {
                         StdoutWriter.writeToStdout("readyok");
                         break;
                     case "ucinewgame":
-                        //ignore
+                        //forget the search results of the previous game
                         logger.info("Recognized ucinewgame.");
+                        Controller.newGame();
                         break;
                     case "position":
                         //get position
                         logger.info("Recognized position command.");
+                        //a running calculation belongs to the previous position
+                        if (organizer != null)
+                            organizer.stopCalculations();
                         if(splittedInput.length > 1){
                             this.position = splittedInput[1];
 
@@ -131,9 +250,10 @@ public class RequestHandler {
                         //computing is started with the go command
                         break;
                     case "go":
-                        //ignore params for the moment, start computing async by creating organizer with given values
+                        //start computing async by creating organizer with given values and the params of this command
                         logger.info("Recognized go command. Starting calculation...");
-                        organizer = new Organizer(this.options, position, new ArrayList<String>(List.of(moves)));
+                        calculationOptions = parseGoParameters(splittedInput);
+                        organizer = new Organizer(calculationOptions, position, new ArrayList<String>(List.of(moves)));
                         CompletableFuture<String> futureMove = organizer.calculateNextMoveAsync();
                         futureMove.thenAccept(s ->
                         {
@@ -141,10 +261,17 @@ public class RequestHandler {
                             StdoutWriter.writeToStdout("bestmove " + s);
                         });
                         break;
+                    case "ponderhit":
+                        //the opponent played the expected move, so the ponder search continues as normal search
+                        logger.info("Recognized ponderhit command.");
+                        if (calculationOptions != null)
+                            calculationOptions.ponderHit();
+                        break;
                     case "stop":
                         //indicate gui asked to send the move
-                        //not used yet
                         logger.info("Recognized stop command.");
+                        if (calculationOptions != null)
+                            calculationOptions.stop();
                         break;
                     case "debug":
                         //change the debug option
@@ -180,4 +307,41 @@ public class RequestHandler {
             }
         }
     }
+
+    /**
+     * Reads the parameters of a go command into a copy of the current options.
+     * Unsupported parameters are ignored.
+     * @param splittedInput the go command split by spaces.
+     * @return the options for the calculation started by the go command.
+     */
+    private Options parseGoParameters(String[] splittedInput){
+        Options goOptions = this.options.copy();
+        goOptions.setStartTime(System.currentTimeMillis());
+        for(int i = 1; i < splittedInput.length; i++){
+            try {
+                switch (splittedInput[i]) {
+                    case "ponder" -> {
+                        goOptions.setPondering(true);
+                        logger.info("Pondering on the position.");
+                    }
+                    case "wtime" -> goOptions.setWhiteTime(Long.parseLong(splittedInput[++i]));
+                    case "btime" -> goOptions.setBlackTime(Long.parseLong(splittedInput[++i]));
+                    case "winc" -> goOptions.setWhiteIncrement(Long.parseLong(splittedInput[++i]));
+                    case "binc" -> goOptions.setBlackIncrement(Long.parseLong(splittedInput[++i]));
+                    case "movestogo" -> goOptions.setMovesToGo(Integer.parseInt(splittedInput[++i]));
+                    case "movetime" -> goOptions.setMoveTime(Long.parseLong(splittedInput[++i]));
+                    case "depth" -> goOptions.setRecursionDepth(Integer.parseInt(splittedInput[++i]));
+                    case "infinite" -> goOptions.setInfinite(true);
+                    case "mate" -> {
+                        goOptions.setMateSearch(Integer.parseInt(splittedInput[++i]));
+                        logger.info("Searching for mate in [" + goOptions.getMateSearch() + "] moves.");
+                    }
+                    default -> logger.info("Ignored go parameter [" + splittedInput[i] + "].");
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                logger.warning("The go parameter [" + splittedInput[i - 1] + "] has no valid value.");
+            }
+        }
+        return goOptions;
+    }
 }
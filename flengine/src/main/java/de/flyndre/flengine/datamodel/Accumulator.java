@@ -0,0 +1,29 @@
+package de.flyndre.flengine.datamodel;
+
+/**
+ * State which is derived from the pieces of a {@code Board}, like the first layer of a neural network evaluation.
+ * Once it is attached to a board, the board keeps it up to date with every change and copies it with the board,
+ * so that it never has to be calculated from scratch again.
+ * @see Board#setAccumulator(Accumulator)
+ */
+public interface Accumulator {
+
+    /**
+     * Adds a piece which was set on a field.
+     * @param piece the piece.
+     * @param field the field of the piece.
+     */
+    void add(Piece piece, Field field);
+
+    /**
+     * Removes a piece which was taken from a field.
+     * @param piece the piece.
+     * @param field the field of the piece.
+     */
+    void remove(Piece piece, Field field);
+
+    /**
+     * @return an independent copy of the state, for a copy of the board.
+     */
+    Accumulator copy();
+}
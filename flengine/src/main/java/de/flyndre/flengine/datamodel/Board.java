@@ -30,7 +30,8 @@ public class Board {
     private Color nextColor = Color.WHITE;
 
     /**
-     * Number of the next move to be done on the board. This is important for fen string support.
+     * Number of the next full move to be done on the board, which is increased after every move of black.
+     * This is important for fen string support.
      */
     private int moveCounter = 1;
     /**
@@ -49,6 +50,38 @@ public class Board {
      * Indicates whether black can do long castling
      */
     private boolean blackLongCastling = true;
+    /**
+     * Zobrist hash of the position. It is updated with every change of the board.
+     * @see Zobrist
+     */
+    private long hash = Zobrist.castling(0) ^ Zobrist.castling(1) ^ Zobrist.castling(2) ^ Zobrist.castling(3);
+    /**
+     * Material signature of the position: the number of pieces of every piece type and color, four bits each.
+     * It is updated with every change of the board.
+     * @see #materialKey(Piece)
+     */
+    private long materialKey = 0;
+    /**
+     * Zobrist hash of the pawns alone, which changes only with pawn moves and captures of pawns.
+     * It is updated with every change of the board.
+     */
+    private long pawnHash = 0;
+    /**
+     * The fields of the kings, indexed by the ordinal of their color. They are updated whenever a king is set.
+     */
+    private Field[] kingFields = new Field[2];
+    /**
+     * Derived state which the evaluation attached to the board, or null. It is updated with every change of the board.
+     */
+    private Accumulator accumulator = null;
+    /**
+     * Sums of the middlegame and endgame values of all pieces and the game phase of the position.
+     * They are updated with every change of the board.
+     * @see PieceSquareTable
+     */
+    private int middlegameValue = 0;
+    private int endgameValue = 0;
+    private int phase = 0;
 
     /**
      * Executes a Move on the Board. If the target field is occupied it'll replace the piece on the target field with
@@ -65,24 +98,24 @@ public class Board {
         //check whether move affects future castling and set flags accordingly
         if(getPiece(move.getFrom()).getTypeOfFigure() == Type.KING){
             if(getPiece(move.getFrom()).getColor() == Color.WHITE){
-                whiteShortCastling = false;
-                whiteLongCastling = false;
+                setWhiteShortCastling(false);
+                setWhiteLongCastling(false);
             }else{
-                blackShortCastling = false;
-                blackLongCastling = false;
+                setBlackShortCastling(false);
+                setBlackLongCastling(false);
             }
         } else if (getPiece(move.getFrom()).getTypeOfFigure() == Type.ROOK) {
             if(getPiece(move.getFrom()).getColor() == Color.WHITE){
                 if (move.getFrom().getRow() == Row.A){
-                    whiteLongCastling = false;
+                    setWhiteLongCastling(false);
                 }else if (move.getFrom().getRow() == Row.H){
-                    whiteShortCastling = false;
+                    setWhiteShortCastling(false);
                 }
             }else{
                 if (move.getFrom().getRow() == Row.A){
-                    blackLongCastling = false;
+                    setBlackLongCastling(false);
                 }else if (move.getFrom().getRow() == Row.H){
-                    blackShortCastling = false;
+                    setBlackShortCastling(false);
                 }
             }
         }
@@ -147,30 +180,69 @@ public class Board {
         if(getPiece(move.getTo()).getTypeOfFigure() == Type.PAWN){
             if(move.getFrom().getLine() == Line.TWO){
                 if(move.getTo().getLine() == Line.FOUR){
-                    this.enPassantField = new Field(Line.THREE, move.getFrom().getRow());
+                    setEnPassantField(new Field(Line.THREE, move.getFrom().getRow()));
                 }else{
-                    this.enPassantField = null;
+                    setEnPassantField(null);
                 }
             }else if(move.getFrom().getLine() == Line.SEVEN){
                 if(move.getTo().getLine() == Line.FIVE){
-                    this.enPassantField = new Field(Line.SIX, move.getFrom().getRow());
+                    setEnPassantField(new Field(Line.SIX, move.getFrom().getRow()));
                 }else{
-                    this.enPassantField = null;
+                    setEnPassantField(null);
                 }
             }else{
-                this.enPassantField = null;
+                setEnPassantField(null);
             }
         }else {
-            this.enPassantField = null;
+            setEnPassantField(null);
         }
 
         if(this.nextColor==Color.BLACK){
-            this.nextColor = Color.WHITE;
+            setNextColor(Color.WHITE);
+            moveCounter++;
         }else {
-            this.nextColor = Color.BLACK;
+            setNextColor(Color.BLACK);
         }
+    }
+
+    /**
+     * Passes the turn to the opponent without moving a piece. This is not a legal chess move, but it is used by
+     * the search to test whether a position is still good enough if the side to move does nothing.
+     * The en passant field is cleared, because it only exists directly after the double step of a pawn.
+     * @return the en passant field before the null move, which is needed to take it back.
+     */
+    public Field playNullMove(){
+        Field previousEnPassantField = this.enPassantField;
+        setEnPassantField(null);
+        setNextColor(this.nextColor == Color.WHITE ? Color.BLACK : Color.WHITE);
+        return previousEnPassantField;
+    }
 
-        moveCounter++;
+    /**
+     * Takes back a null move played by {@link #playNullMove()}.
+     * @param previousEnPassantField the en passant field returned by {@link #playNullMove()}.
+     */
+    public void undoNullMove(Field previousEnPassantField){
+        setNextColor(this.nextColor == Color.WHITE ? Color.BLACK : Color.WHITE);
+        setEnPassantField(previousEnPassantField);
+    }
+
+    /**
+     * Returns whether the given color has any piece left besides its king and pawns.
+     * Positions without such pieces are prone to zugzwang.
+     * @param color the color to check.
+     * @return true if the color has a knight, bishop, rook or queen.
+     */
+    public boolean hasNonPawnMaterial(Color color){
+        for (Piece[] line : this.pieces) {
+            for (Piece piece : line) {
+                if (piece != null && piece.getColor() == color &&
+                        piece.getTypeOfFigure() != Type.PAWN && piece.getTypeOfFigure() != Type.KING) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     public int pieceCount() {
@@ -197,7 +269,36 @@ public class Board {
      * @param field the field to set the piece on
      */
     public void setPiece(Piece piece, Field field) {
+        Piece previousPiece = pieces[field.getLine().ordinal()][field.getRow().ordinal()];
+        if (previousPiece != null) {
+            hash ^= Zobrist.piece(previousPiece, field);
+            if (previousPiece.getTypeOfFigure() == Type.PAWN) {
+                pawnHash ^= Zobrist.piece(previousPiece, field);
+            }
+            materialKey -= materialKey(previousPiece);
+            middlegameValue -= PieceSquareTable.middlegame(previousPiece, field);
+            endgameValue -= PieceSquareTable.endgame(previousPiece, field);
+            phase -= PieceSquareTable.phase(previousPiece);
+            if (accumulator != null) {
+                accumulator.remove(previousPiece, field);
+            }
+        }
         pieces[field.getLine().ordinal()][field.getRow().ordinal()] = piece;
+        if (piece != null) {
+            hash ^= Zobrist.piece(piece, field);
+            if (piece.getTypeOfFigure() == Type.PAWN) {
+                pawnHash ^= Zobrist.piece(piece, field);
+            } else if (piece.getTypeOfFigure() == Type.KING) {
+                kingFields[piece.getColor().ordinal()] = field;
+            }
+            materialKey += materialKey(piece);
+            middlegameValue += PieceSquareTable.middlegame(piece, field);
+            endgameValue += PieceSquareTable.endgame(piece, field);
+            phase += PieceSquareTable.phase(piece);
+            if (accumulator != null) {
+                accumulator.add(piece, field);
+            }
+        }
     }
 
     /**
@@ -212,9 +313,96 @@ public class Board {
      * @param nextColor the color of the next player.
      */
     public void setNextColor(Color nextColor) {
+        if (this.nextColor != nextColor) {
+            hash ^= Zobrist.blackToMove();
+        }
         this.nextColor = nextColor;
     }
 
+    /**
+     * @return the Zobrist hash of the position.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return the Zobrist hash of the pawns of the position, which is the same for all positions with the same pawns.
+     */
+    public long getPawnHash() {
+        return pawnHash;
+    }
+
+    /**
+     * @param color the color of the king.
+     * @return the field of the king of the color or null if the board never had one.
+     */
+    public Field getKingField(Color color) {
+        return kingFields[color.ordinal()];
+    }
+
+    /**
+     * @return the accumulator attached to the board or null if there is none.
+     */
+    public Accumulator getAccumulator() {
+        return accumulator;
+    }
+
+    /**
+     * Attaches an accumulator to the board, which replaces the previous one. All pieces on the board are added to it,
+     * from then on the board keeps it up to date with every change.
+     * @param accumulator the accumulator, which has to be empty.
+     */
+    public void setAccumulator(Accumulator accumulator) {
+        this.accumulator = accumulator;
+        for (int line = 0; line < 8; line++) {
+            for (int row = 0; row < 8; row++) {
+                if (pieces[line][row] != null) {
+                    accumulator.add(pieces[line][row], new Field(Line.values()[line], Row.values()[row]));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the material signature of the position, which is the same for all positions with the same pieces.
+     */
+    public long getMaterialKey() {
+        return materialKey;
+    }
+
+    /**
+     * @return the sum of the middlegame values of all pieces, from the view of white.
+     */
+    public int getMiddlegameValue() {
+        return middlegameValue;
+    }
+
+    /**
+     * @return the sum of the endgame values of all pieces, from the view of white.
+     */
+    public int getEndgameValue() {
+        return endgameValue;
+    }
+
+    /**
+     * @return the game phase of the position, from {@link PieceSquareTable#MAX_PHASE} with all pieces down to 0
+     * with only kings and pawns. It may exceed the maximum after promotions.
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Returns the part of the material signature which a single piece adds.
+     * The material signature of a board is the sum of this value for all of its pieces.
+     * @param piece the piece.
+     * @return the material key of the piece.
+     */
+    public static long materialKey(Piece piece) {
+        return 1L << 4 * piece.hashCode();
+    }
+
 
     public boolean getWhiteShortCastling(){
         return this.whiteShortCastling;
@@ -237,21 +425,33 @@ public class Board {
 
 
     public void setWhiteShortCastling(boolean whiteShortCastling){
+        if (this.whiteShortCastling != whiteShortCastling) {
+            hash ^= Zobrist.castling(0);
+        }
         this.whiteShortCastling = whiteShortCastling;
     }
 
 
     public void setWhiteLongCastling(boolean whiteLongCastling){
+        if (this.whiteLongCastling != whiteLongCastling) {
+            hash ^= Zobrist.castling(1);
+        }
         this.whiteLongCastling = whiteLongCastling;
     }
 
 
     public void setBlackShortCastling(boolean blackShortCastling){
+        if (this.blackShortCastling != blackShortCastling) {
+            hash ^= Zobrist.castling(2);
+        }
         this.blackShortCastling = blackShortCastling;
     }
 
 
     public void setBlackLongCastling(boolean blackLongCastling){
+        if (this.blackLongCastling != blackLongCastling) {
+            hash ^= Zobrist.castling(3);
+        }
         this.blackLongCastling = blackLongCastling;
     }
 
@@ -293,6 +493,15 @@ public class Board {
         b.whiteLongCastling = this.whiteLongCastling;
         b.whiteShortCastling = this.whiteShortCastling;
         b.blackShortCastling = this.blackShortCastling;
+        b.enPassantField = this.enPassantField;
+        b.hash = this.hash;
+        b.materialKey = this.materialKey;
+        b.pawnHash = this.pawnHash;
+        b.kingFields = this.kingFields.clone();
+        b.accumulator = this.accumulator == null ? null : this.accumulator.copy();
+        b.middlegameValue = this.middlegameValue;
+        b.endgameValue = this.endgameValue;
+        b.phase = this.phase;
         return b;
     }
 
@@ -301,6 +510,12 @@ public class Board {
     }
 
     public void setEnPassantField(Field enPassantField) {
+        if (this.enPassantField != null) {
+            hash ^= Zobrist.enPassant(this.enPassantField);
+        }
         this.enPassantField = enPassantField;
+        if (enPassantField != null) {
+            hash ^= Zobrist.enPassant(enPassantField);
+        }
     }
 }
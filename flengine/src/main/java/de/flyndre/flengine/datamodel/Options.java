@@ -1,13 +1,21 @@
 package de.flyndre.flengine.datamodel;
 
 import de.flyndre.flengine.datamodel.enums.Difficulty;
+import de.flyndre.flengine.datamodel.enums.SearchAlgorithm;
 
 /**
  * This class provides a data model to store options specified via UCI commands.
+ * Besides the options set by "setoption" it also holds the parameters of a single "go" command,
+ * therefore every calculation gets its own copy.
  * @author Lukas
  */
 public class Options {
 
+    /**
+     * Number of positions of the move cache until the options request another size.
+     */
+    public static final int DEFAULT_MOVE_CACHE_SIZE = 1024;
+
     /**
      * Used to tweak the difficulty of the engine.
      * Values are specified in the enum {@code EngineDifficulty}.
@@ -17,6 +25,182 @@ public class Options {
      * Used to tweak the max recursive depth of the MiniMax-Algorithm
      */
     private int recursionDepth = 4;
+    /**
+     * Used to tweak up to which depth the MiniMax-Algorithm forks its subtrees as parallel tasks.
+     * Deeper levels are searched sequentially on the thread that owns the subtree.
+     */
+    private int splitDepth = 2;
+    /**
+     * Number of moves in which a forced mate is searched, as given by "go mate".
+     * The value 0 disables the mate search.
+     */
+    private int mateSearch = 0;
+    /**
+     * Used to choose the algorithm which searches a move if no opening or endgame move is known.
+     */
+    private SearchAlgorithm searchAlgorithm = SearchAlgorithm.MINMAX;
+    /**
+     * Used to tweak the number of playouts of the Monte Carlo tree search.
+     */
+    private int mctsPlayouts = 2000;
+    /**
+     * Used to tweak the size of the transposition table in megabytes.
+     */
+    private int hashSize = 16;
+    /**
+     * Used to tweak the size of the cache of static evaluations in megabytes.
+     */
+    private int evalCacheSize = 4;
+    /**
+     * Used to tweak the number of positions whose searched moves are cached. The value 0 disables the cache.
+     */
+    private int moveCacheSize = DEFAULT_MOVE_CACHE_SIZE;
+    /**
+     * Used to tweak whether the search evaluates positions with the neural network instead of the classical evaluation.
+     */
+    private boolean useNnue = false;
+    /**
+     * Used to tweak which providers are asked before the search, as name of a bundled profile or path of a file.
+     */
+    private String providerConfig = "default";
+    /**
+     * Used to tweak which local Polyglot opening book is used, as path of the file. It is empty if no book is used.
+     */
+    private String bookFile = "";
+    /**
+     * Used to tweak whether the engine proposes a move to ponder on together with its best move.
+     */
+    private boolean ponder = false;
+    /**
+     * Used to tweak the number of best moves for which the engine sends a principal variation with an exact score.
+     */
+    private int multiPv = 1;
+    /**
+     * Remaining time of white on the clock in milliseconds, as given by "go wtime". The value 0 means no clock.
+     */
+    private long whiteTime = 0;
+    /**
+     * Remaining time of black on the clock in milliseconds, as given by "go btime". The value 0 means no clock.
+     */
+    private long blackTime = 0;
+    /**
+     * Increment of white per move in milliseconds, as given by "go winc".
+     */
+    private long whiteIncrement = 0;
+    /**
+     * Increment of black per move in milliseconds, as given by "go binc".
+     */
+    private long blackIncrement = 0;
+    /**
+     * Number of moves until the next time control, as given by "go movestogo". The value 0 means sudden death.
+     */
+    private int movesToGo = 0;
+    /**
+     * Exact time for the move in milliseconds, as given by "go movetime". The value 0 means no fixed time.
+     */
+    private long moveTime = 0;
+    /**
+     * Whether the calculation runs on the time of the opponent, as started by "go ponder".
+     * It is changed by the gui while the calculation runs, so it is volatile.
+     */
+    private volatile boolean pondering = false;
+    /**
+     * Time at which the clock of the calculation started. For a ponder search this is the time of the ponderhit.
+     */
+    private volatile long startTime = System.currentTimeMillis();
+    /**
+     * Whether the calculation searches until it is stopped, as given by "go infinite".
+     */
+    private boolean infinite = false;
+    /**
+     * Whether the gui stopped the calculation, which then has to return its best move so far.
+     * It is changed by the gui while the calculation runs, so it is volatile.
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * Creates a copy of the options, so that the parameters of a calculation can be set
+     * without changing the options of the engine.
+     * @return the copy.
+     */
+    public Options copy() {
+        Options options = new Options();
+        options.difficulty = this.difficulty;
+        options.recursionDepth = this.recursionDepth;
+        options.splitDepth = this.splitDepth;
+        options.mateSearch = this.mateSearch;
+        options.searchAlgorithm = this.searchAlgorithm;
+        options.mctsPlayouts = this.mctsPlayouts;
+        options.hashSize = this.hashSize;
+        options.evalCacheSize = this.evalCacheSize;
+        options.moveCacheSize = this.moveCacheSize;
+        options.useNnue = this.useNnue;
+        options.providerConfig = this.providerConfig;
+        options.bookFile = this.bookFile;
+        options.ponder = this.ponder;
+        options.multiPv = this.multiPv;
+        options.whiteTime = this.whiteTime;
+        options.blackTime = this.blackTime;
+        options.whiteIncrement = this.whiteIncrement;
+        options.blackIncrement = this.blackIncrement;
+        options.movesToGo = this.movesToGo;
+        options.moveTime = this.moveTime;
+        options.pondering = this.pondering;
+        options.startTime = this.startTime;
+        options.infinite = this.infinite;
+        options.stopped = this.stopped;
+        return options;
+    }
+
+    /**
+     * Turns a ponder search into a normal search, because the opponent played the expected move.
+     * The clock of the calculation starts now.
+     */
+    public synchronized void ponderHit() {
+        this.startTime = System.currentTimeMillis();
+        stopPondering();
+    }
+
+    /**
+     * Ends pondering without starting the clock, for example because the gui stopped the calculation.
+     */
+    public synchronized void stopPondering() {
+        this.pondering = false;
+        notifyAll();
+    }
+
+    /**
+     * Stops the calculation, which then returns its best move so far. Pondering ends as well.
+     */
+    public synchronized void stop() {
+        this.stopped = true;
+        stopPondering();
+    }
+
+    /**
+     * Stops the calculation without ending pondering, because its result is not needed any more,
+     * for example because another provider already found the move. A ponder search still waits for the gui.
+     */
+    public void cancel() {
+        this.stopped = true;
+    }
+
+    /**
+     * Waits until pondering ends. The best move of a ponder search must not be sent before.
+     * @throws InterruptedException if the waiting thread is interrupted.
+     */
+    public synchronized void awaitPonderEnd() throws InterruptedException {
+        while (pondering) {
+            wait();
+        }
+    }
+
+    /**
+     * @return the milliseconds since the clock of the calculation started.
+     */
+    public long getElapsedTime() {
+        return System.currentTimeMillis() - startTime;
+    }
 
     public Difficulty getDifficulty() {
         return difficulty;
@@ -33,4 +217,180 @@ public class Options {
     public void setRecursionDepth(int recursionDepth) {
         this.recursionDepth = recursionDepth;
     }
+
+    public int getSplitDepth() {
+        return splitDepth;
+    }
+
+    public void setSplitDepth(int splitDepth) {
+        this.splitDepth = splitDepth;
+    }
+
+    public int getMateSearch() {
+        return mateSearch;
+    }
+
+    public void setMateSearch(int mateSearch) {
+        this.mateSearch = mateSearch;
+    }
+
+    public SearchAlgorithm getSearchAlgorithm() {
+        return searchAlgorithm;
+    }
+
+    public void setSearchAlgorithm(SearchAlgorithm searchAlgorithm) {
+        this.searchAlgorithm = searchAlgorithm;
+    }
+
+    public int getMctsPlayouts() {
+        return mctsPlayouts;
+    }
+
+    public void setMctsPlayouts(int mctsPlayouts) {
+        this.mctsPlayouts = mctsPlayouts;
+    }
+
+    public int getHashSize() {
+        return hashSize;
+    }
+
+    public void setHashSize(int hashSize) {
+        this.hashSize = hashSize;
+    }
+
+    public int getEvalCacheSize() {
+        return evalCacheSize;
+    }
+
+    public void setEvalCacheSize(int evalCacheSize) {
+        this.evalCacheSize = evalCacheSize;
+    }
+
+    public int getMoveCacheSize() {
+        return moveCacheSize;
+    }
+
+    public void setMoveCacheSize(int moveCacheSize) {
+        this.moveCacheSize = moveCacheSize;
+    }
+
+    public boolean isUseNnue() {
+        return useNnue;
+    }
+
+    public void setUseNnue(boolean useNnue) {
+        this.useNnue = useNnue;
+    }
+
+    public String getProviderConfig() {
+        return providerConfig;
+    }
+
+    public void setProviderConfig(String providerConfig) {
+        this.providerConfig = providerConfig;
+    }
+
+    public String getBookFile() {
+        return bookFile;
+    }
+
+    public void setBookFile(String bookFile) {
+        this.bookFile = bookFile;
+    }
+
+    public boolean isPonder() {
+        return ponder;
+    }
+
+    public void setPonder(boolean ponder) {
+        this.ponder = ponder;
+    }
+
+    public long getWhiteTime() {
+        return whiteTime;
+    }
+
+    public void setWhiteTime(long whiteTime) {
+        this.whiteTime = whiteTime;
+    }
+
+    public long getBlackTime() {
+        return blackTime;
+    }
+
+    public void setBlackTime(long blackTime) {
+        this.blackTime = blackTime;
+    }
+
+    public long getWhiteIncrement() {
+        return whiteIncrement;
+    }
+
+    public void setWhiteIncrement(long whiteIncrement) {
+        this.whiteIncrement = whiteIncrement;
+    }
+
+    public long getBlackIncrement() {
+        return blackIncrement;
+    }
+
+    public void setBlackIncrement(long blackIncrement) {
+        this.blackIncrement = blackIncrement;
+    }
+
+    public int getMovesToGo() {
+        return movesToGo;
+    }
+
+    public void setMovesToGo(int movesToGo) {
+        this.movesToGo = movesToGo;
+    }
+
+    public long getMoveTime() {
+        return moveTime;
+    }
+
+    public void setMoveTime(long moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public boolean isInfinite() {
+        return infinite;
+    }
+
+    public void setInfinite(boolean infinite) {
+        this.infinite = infinite;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public void setStopped(boolean stopped) {
+        this.stopped = stopped;
+    }
+
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    public void setMultiPv(int multiPv) {
+        this.multiPv = multiPv;
+    }
 }
@@ -0,0 +1,190 @@
+package de.flyndre.flengine.datamodel;
+
+import de.flyndre.flengine.datamodel.enums.Type;
+
+/**
+ * Values of every piece on every field in centipawns, for the middlegame and for the endgame.
+ * A value is the material of the piece plus a bonus for its field, positive for white and negative for black pieces.
+ * The sums of the values of all pieces are updated by the {@code Board} with every change, like its hash,
+ * so that the evaluation only has to blend them by the game phase.
+ */
+public class PieceSquareTable {
+
+    /**
+     * Game phase of a board with all pieces. Each knight and bishop counts 1, each rook 2 and each queen 4.
+     */
+    public static final int MAX_PHASE = 24;
+
+    /**
+     * Field bonuses from the view of white, indexed by the type and the field. The tables are written as seen
+     * on the board, so the first line of a table is the eighth line of the board.
+     */
+    private static final int[][] MIDDLEGAME_BONUS = {
+            // pawn
+            {
+                      0,   0,   0,   0,   0,   0,   0,   0,
+                     50,  50,  50,  50,  50,  50,  50,  50,
+                     10,  10,  20,  30,  30,  20,  10,  10,
+                      5,   5,  10,  25,  25,  10,   5,   5,
+                      0,   0,   0,  20,  20,   0,   0,   0,
+                      5,  -5, -10,   0,   0, -10,  -5,   5,
+                      5,  10,  10, -20, -20,  10,  10,   5,
+                      0,   0,   0,   0,   0,   0,   0,   0
+            },
+            // rook
+            {
+                      0,   0,   0,   0,   0,   0,   0,   0,
+                      5,  10,  10,  10,  10,  10,  10,   5,
+                     -5,   0,   0,   0,   0,   0,   0,  -5,
+                     -5,   0,   0,   0,   0,   0,   0,  -5,
+                     -5,   0,   0,   0,   0,   0,   0,  -5,
+                     -5,   0,   0,   0,   0,   0,   0,  -5,
+                     -5,   0,   0,   0,   0,   0,   0,  -5,
+                      0,   0,   0,   5,   5,   0,   0,   0
+            },
+            // bishop
+            {
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10,   0,   0,   0,   0,   0,   0, -10,
+                    -10,   0,   5,  10,  10,   5,   0, -10,
+                    -10,   5,   5,  10,  10,   5,   5, -10,
+                    -10,   0,  10,  10,  10,  10,   0, -10,
+                    -10,  10,  10,  10,  10,  10,  10, -10,
+                    -10,   5,   0,   0,   0,   0,   5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20
+            },
+            // knight
+            {
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20,   0,   0,   0,   0, -20, -40,
+                    -30,   0,  10,  15,  15,  10,   0, -30,
+                    -30,   5,  15,  20,  20,  15,   5, -30,
+                    -30,   0,  15,  20,  20,  15,   0, -30,
+                    -30,   5,  10,  15,  15,  10,   5, -30,
+                    -40, -20,   0,   5,   5,   0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50
+            },
+            // queen
+            {
+                    -20, -10, -10,  -5,  -5, -10, -10, -20,
+                    -10,   0,   0,   0,   0,   0,   0, -10,
+                    -10,   0,   5,   5,   5,   5,   0, -10,
+                     -5,   0,   5,   5,   5,   5,   0,  -5,
+                     -5,   0,   5,   5,   5,   5,   0,  -5,
+                    -10,   5,   5,   5,   5,   5,   0, -10,
+                    -10,   0,   5,   0,   0,   0,   0, -10,
+                    -20, -10, -10,  -5,  -5, -10, -10, -20
+            },
+            // king, which stays behind its pawns
+            {
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                     20,  20,   0,   0,   0,   0,  20,  20,
+                     20,  30,  10,   0,   0,  10,  30,  20
+            }
+    };
+
+    /**
+     * Field bonuses in the endgame, where pawns are worth more the closer they are to promotion
+     * and the king belongs to the center. The other pieces keep their middlegame bonuses.
+     */
+    private static final int[][] ENDGAME_BONUS = {
+            // pawn
+            {
+                      0,   0,   0,   0,   0,   0,   0,   0,
+                     80,  80,  80,  80,  80,  80,  80,  80,
+                     50,  50,  50,  50,  50,  50,  50,  50,
+                     30,  30,  30,  30,  30,  30,  30,  30,
+                     20,  20,  20,  20,  20,  20,  20,  20,
+                     10,  10,  10,  10,  10,  10,  10,  10,
+                      0,   0,   0,   0,   0,   0,   0,   0,
+                      0,   0,   0,   0,   0,   0,   0,   0
+            },
+            MIDDLEGAME_BONUS[Type.ROOK.ordinal()],
+            MIDDLEGAME_BONUS[Type.BISHOP.ordinal()],
+            MIDDLEGAME_BONUS[Type.KNIGHT.ordinal()],
+            MIDDLEGAME_BONUS[Type.QUEEN.ordinal()],
+            // king
+            {
+                    -50, -40, -30, -20, -20, -30, -40, -50,
+                    -30, -20, -10,   0,   0, -10, -20, -30,
+                    -30, -10,  20,  30,  30,  20, -10, -30,
+                    -30, -10,  30,  40,  40,  30, -10, -30,
+                    -30, -10,  30,  40,  40,  30, -10, -30,
+                    -30, -10,  20,  30,  30,  20, -10, -30,
+                    -30, -30,   0,   0,   0,   0, -30, -30,
+                    -50, -30, -30, -30, -30, -30, -30, -50
+            }
+    };
+
+    /**
+     * Contribution of every type to the game phase.
+     */
+    private static final int[] PHASE = {0, 2, 1, 1, 4, 0};
+
+    /**
+     * Values of every piece on every field, indexed by piece and field like the keys of {@code Zobrist}.
+     */
+    private static final int[][] MIDDLEGAME = new int[12][64];
+    private static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        for (Type type : Type.values()) {
+            int material = type == Type.KING ? 0 : type.getCentipawnValue();
+            for (int field = 0; field < 64; field++) {
+                // the field index counts from a1, the tables from a8, and black sees the board mirrored
+                int whiteIndex = (7 - field / 8) * 8 + field % 8;
+                int blackIndex = field;
+                MIDDLEGAME[type.ordinal() * 2][field] = material + MIDDLEGAME_BONUS[type.ordinal()][whiteIndex];
+                MIDDLEGAME[type.ordinal() * 2 + 1][field] = -material - MIDDLEGAME_BONUS[type.ordinal()][blackIndex];
+                ENDGAME[type.ordinal() * 2][field] = material + ENDGAME_BONUS[type.ordinal()][whiteIndex];
+                ENDGAME[type.ordinal() * 2 + 1][field] = -material - ENDGAME_BONUS[type.ordinal()][blackIndex];
+            }
+        }
+    }
+
+    private PieceSquareTable() {
+    }
+
+    /**
+     * @param piece the piece
+     * @param field the field the piece stands on
+     * @return the middlegame value of the piece on the field, negative for black pieces
+     */
+    public static int middlegame(Piece piece, Field field) {
+        return MIDDLEGAME[piece.hashCode()][field.hashCode()];
+    }
+
+    /**
+     * @param piece the piece
+     * @param field the field the piece stands on
+     * @return the endgame value of the piece on the field, negative for black pieces
+     */
+    public static int endgame(Piece piece, Field field) {
+        return ENDGAME[piece.hashCode()][field.hashCode()];
+    }
+
+    /**
+     * @param piece the piece
+     * @return the contribution of the piece to the game phase, which doesn't depend on its color
+     */
+    public static int phase(Piece piece) {
+        return PHASE[piece.getTypeOfFigure().ordinal()];
+    }
+
+    /**
+     * Blends the middlegame and the endgame value of a board by its game phase.
+     * @param middlegame the middlegame value of the board.
+     * @param endgame the endgame value of the board.
+     * @param phase the game phase of the board, which is capped at {@link #MAX_PHASE} after promotions.
+     * @return the blended value from the view of white.
+     */
+    public static int taper(int middlegame, int endgame, int phase) {
+        int middlegamePhase = Math.min(phase, MAX_PHASE);
+        return (middlegame * middlegamePhase + endgame * (MAX_PHASE - middlegamePhase)) / MAX_PHASE;
+    }
+}
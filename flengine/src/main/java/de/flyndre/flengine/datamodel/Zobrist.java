@@ -0,0 +1,87 @@
+package de.flyndre.flengine.datamodel;
+
+import de.flyndre.flengine.datamodel.enums.Color;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of a {@code Board}.
+ * The hash of a board is the xor of the keys of all pieces on their fields, the castling rights,
+ * the row of the en passant field and the side to move. Because xor is its own inverse,
+ * the hash can be updated with every change of the board instead of being recalculated.
+ */
+public class Zobrist {
+
+    /**
+     * Seed of the key generator. It is fixed, so that hashes are the same in every run.
+     */
+    private static final long SEED = 0x466C656E67696E65L;
+
+    /**
+     * Keys for every piece on every field, indexed by piece and field.
+     */
+    private static final long[][] PIECES = new long[12][64];
+    /**
+     * Keys for white short, white long, black short and black long castling.
+     */
+    private static final long[] CASTLING = new long[4];
+    /**
+     * Keys for the row of the en passant field.
+     */
+    private static final long[] EN_PASSANT = new long[8];
+    /**
+     * Key which is added if black is on turn.
+     */
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] keys : PIECES) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param piece the piece
+     * @param field the field the piece stands on
+     * @return the key of the piece on the given field
+     */
+    public static long piece(Piece piece, Field field) {
+        return PIECES[piece.getTypeOfFigure().ordinal() * 2 + (piece.getColor() == Color.WHITE ? 0 : 1)][field.hashCode()];
+    }
+
+    /**
+     * @param index 0 for white short, 1 for white long, 2 for black short and 3 for black long castling
+     * @return the key of the castling right
+     */
+    public static long castling(int index) {
+        return CASTLING[index];
+    }
+
+    /**
+     * @param field the en passant field
+     * @return the key of the row of the en passant field
+     */
+    public static long enPassant(Field field) {
+        return EN_PASSANT[field.getRow().ordinal()];
+    }
+
+    /**
+     * @return the key which is added while black is on turn
+     */
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+}
@@ -2,24 +2,66 @@ package de.flyndre.flengine.datamodel.enums;
 
 /**
  * Used to tweak the engine's difficulty.
- * A lower value makes it less difficult, a higher one more difficult.
- * The value 1 gives all moves the same probability.
+ * The strength of the search is limited by budgets: the maximal depth and number of nodes of the Minimax search,
+ * the maximal number of playouts of the Monte Carlo tree search and a noise which is added to the static evaluation.
+ * A weaker difficulty therefore also needs less time, while the engine still plays the best move it found.
+ * Only the casual level {@code EASY} is limited, so the default {@code NORMAL} searches with its full strength
+ * in timed games.
+ * The value chooses between the moves of the opening book and the endgame tablebase.
+ * A lower value makes it less difficult, a higher one more difficult. The value 1 gives all moves the same probability.
  * @author Paul
  */
 public enum Difficulty {
-    EASY(1),
-    NORMAL(8),
-    HARD(100);
+    EASY(1, 2, 5_000, 200, 100),
+    NORMAL(8, Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, 0),
+    HARD(100, Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, 0);
 
     private final int difficultyValue;
-    Difficulty(int difficultyValue){
+    private final int maxDepth;
+    private final long maxNodes;
+    private final int maxPlayouts;
+    private final int evaluationNoise;
+    Difficulty(int difficultyValue, int maxDepth, long maxNodes, int maxPlayouts, int evaluationNoise){
         this.difficultyValue = difficultyValue;
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxPlayouts = maxPlayouts;
+        this.evaluationNoise = evaluationNoise;
     }
 
     public int getValue() {
         return this.difficultyValue;
     }
 
+    /**
+     * @return the maximal depth of the Minimax search, which also caps the recursion depth of the options.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return the number of nodes after which the Minimax search stops and plays the best move of the last
+     * finished iteration.
+     */
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * @return the maximal number of playouts of the Monte Carlo tree search, which also caps the playouts of the options.
+     */
+    public int getMaxPlayouts() {
+        return maxPlayouts;
+    }
+
+    /**
+     * @return the maximal noise in centipawns which is added to or subtracted from every static evaluation.
+     */
+    public int getEvaluationNoise() {
+        return evaluationNoise;
+    }
+
     /**
      * Returns the name of the enum value with only the first letter capitalized.
      * @return the enum value name in a more readable form.
@@ -0,0 +1,18 @@
+package de.flyndre.flengine.datamodel.enums;
+
+/**
+ * Used to choose the algorithm which searches a move if no opening or endgame move is known.
+ */
+public enum SearchAlgorithm {
+    MINMAX,
+    MCTS;
+
+    /**
+     * Returns the name of the enum value with only the first letter capitalized.
+     * @return the enum value name in a more readable form.
+     */
+    public String toReadableString() {
+        var name = this.toString();
+        return name.charAt(0) + name.substring(1).toLowerCase();
+    }
+}
@@ -14,6 +14,13 @@ public enum Type {
         return this.value;
     }
 
+    /**
+     * @return the value of the type in hundredths of a pawn, which is the unit the search calculates with.
+     */
+    public int getCentipawnValue(){
+        return this.value * 100;
+    }
+
     Type(int value) {
         this.value = value;
     }
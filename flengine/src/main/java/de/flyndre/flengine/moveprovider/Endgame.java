@@ -1,13 +1,13 @@
 package de.flyndre.flengine.moveprovider;
 
 import de.flyndre.flengine.datamodel.Options;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import de.flyndre.flengine.converter.Converter;
 import de.flyndre.flengine.datamodel.Board;
 import de.flyndre.flengine.datamodel.Move;
 import javax.json.bind.JsonbBuilder;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
@@ -45,12 +45,18 @@ public class Endgame implements MoveProvider {
         }
     }
 
+    /**
+     * Milliseconds the controller waits for the tablebase by default before it relies on the search.
+     */
+    private static final long DEADLINE = 2000;
+
     private final Logger logger = Logger.getLogger(this.getClass().getName());
 
     /**
      * Provides a list of recommended {@code Move}s for the given situation on the {@code Board}.
      * @param board The current board.
      * @return A list of recommended moves in this situation which may be empty if none were found.
+     * @throws UncheckedIOException if the service can't be reached or answers with an error.
      */
     @Override
     public List<Move> getRecommendedMoves(Board board, Options options) {
@@ -64,7 +70,7 @@ public class Endgame implements MoveProvider {
                 .url("https://tablebase.lichess.ovh/standard?fen=" + fenString)
                 .build();
         logger.info("Requesting endgame moves for: [" + fenString + "]");
-        try (var response = new OkHttpClient().newCall(request).execute()) {
+        try (var response = LichessClient.CLIENT.newCall(request).execute()) {
             if (!response.isSuccessful()) throw new IOException("Unexpected response code: " + response);
             var endgameData = JsonbBuilder.create().fromJson(response.body().string(), EndgameResponse.class);
             logger.info("Received: [" + endgameData.moves.size() + " moves]");
@@ -73,8 +79,13 @@ public class Endgame implements MoveProvider {
                     .map(m -> Converter.sanitizeMove(board, m))
                     .toList();
         } catch (IOException e) {
-            logger.warning("Request failed: " + e.getMessage());
-            return new ArrayList<>();
+            // the failure is passed on, so that the controller counts it against the health of the provider
+            throw new UncheckedIOException(e);
         }
     }
+
+    @Override
+    public long getDeadline() {
+        return DEADLINE;
+    }
 }
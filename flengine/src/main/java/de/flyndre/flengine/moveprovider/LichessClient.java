@@ -0,0 +1,24 @@
+package de.flyndre.flengine.moveprovider;
+
+import okhttp3.OkHttpClient;
+
+import java.time.Duration;
+
+/**
+ * Holds the http client which the {@code MoveProvider}s of the Lichess services share,
+ * so that the connections to the services are kept open between their requests.
+ */
+final class LichessClient {
+
+    /**
+     * Milliseconds after which a request is given up at the latest, even if the controller would wait longer.
+     */
+    static final long REQUEST_TIMEOUT = 10000;
+
+    static final OkHttpClient CLIENT = new OkHttpClient.Builder()
+            .callTimeout(Duration.ofMillis(REQUEST_TIMEOUT))
+            .build();
+
+    private LichessClient() {
+    }
+}
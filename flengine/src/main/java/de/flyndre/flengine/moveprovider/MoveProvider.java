@@ -17,4 +17,30 @@ public interface MoveProvider {
      * @return A list of recommended moves in this situation which may be empty if none were found.
      */
     List<Move> getRecommendedMoves(Board board, Options options);
+
+    /**
+     * Provides the milliseconds the controller waits for the moves of the provider, before it uses the moves
+     * of the next one. Providers which depend on a remote service should answer within that time.
+     * @return The deadline of the provider, which is unlimited by default.
+     */
+    default long getDeadline() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Forgets everything the provider keeps between the moves of a game, because a new game starts.
+     */
+    default void newGame() {
+    }
+
+    /**
+     * Provides the moves which the provider expects to be played from the given situation on,
+     * as calculated by its previous calls.
+     * @param board The situation to start from.
+     * @param maxLength The maximal number of moves.
+     * @return The expected moves of both sides, which is empty if the provider doesn't know any.
+     */
+    default List<Move> getPrincipalVariation(Board board, int maxLength) {
+        return List.of();
+    }
 }
@@ -1,14 +1,13 @@
 package de.flyndre.flengine.moveprovider;
 
 import de.flyndre.flengine.datamodel.Options;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import de.flyndre.flengine.converter.Converter;
 import de.flyndre.flengine.datamodel.Board;
 import de.flyndre.flengine.datamodel.Move;
 import javax.json.bind.JsonbBuilder;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -33,12 +32,18 @@ public class Openings implements MoveProvider {
         }
     }
 
+    /**
+     * Milliseconds the controller waits for the moves by default, so that the search doesn't wait for a slow service.
+     */
+    private static final long DEADLINE = 2000;
+
     private final Logger logger = Logger.getLogger(this.getClass().getName());
 
     /**
      * Provides a list of recommended {@code Move}s for the given situation on the {@code Board}.
      * @param board The current board.
      * @return A list of recommended moves in this situation which may be empty if none were found.
+     * @throws UncheckedIOException if the service can't be reached or answers with an error.
      */
     @Override
     public List<Move> getRecommendedMoves(Board board, Options options) {
@@ -47,7 +52,7 @@ public class Openings implements MoveProvider {
                 .url("https://explorer.lichess.ovh/masters?fen=" + fenString + "&topGames=0")
                 .build();
         logger.info("Requesting opening moves for: [" + fenString + "]");
-        try (var response = new OkHttpClient().newCall(request).execute()) {
+        try (var response = LichessClient.CLIENT.newCall(request).execute()) {
             if (!response.isSuccessful()) throw new IOException("Unexpected response code: " + response);
             var openingData = JsonbBuilder.create().fromJson(response.body().string(), OpeningResponse.class);
             logger.info("Received: [" + openingData.moves.size() + " moves]");
@@ -56,8 +61,13 @@ public class Openings implements MoveProvider {
                     .map(m -> Converter.sanitizeMove(board, m))
                     .toList();
         } catch (IOException e) {
-            logger.warning("Request failed: " + e.getMessage());
-            return new ArrayList<>();
+            // the failure is passed on, so that the controller counts it against the health of the provider
+            throw new UncheckedIOException(e);
         }
     }
+
+    @Override
+    public long getDeadline() {
+        return DEADLINE;
+    }
 }
@@ -0,0 +1,183 @@
+package de.flyndre.flengine.moveprovider;
+
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Field;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.datamodel.enums.Line;
+import de.flyndre.flengine.datamodel.enums.Row;
+import de.flyndre.flengine.datamodel.enums.Type;
+import de.flyndre.flengine.rules.Rule;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * An implementation of {@code MoveProvider} that reads the moves of a position from a local Polyglot opening book,
+ * as set by {@code Options.getBookFile()}.
+ * A book is a file of entries of 16 bytes, sorted by the key of their position: the key as long, the move as short,
+ * its weight as short and 4 bytes of learning data, which are not used. The file is mapped into memory once,
+ * so a lookup is a binary search over the mapped entries without reading the file again.
+ * The moves are returned in a random order in which a move comes first with a probability proportional to its weight.
+ * @see PolyglotKey
+ */
+public class PolyglotBook implements MoveProvider {
+
+    private static final int ENTRY_SIZE = 16;
+    /**
+     * Milliseconds the controller waits for the moves by default. A lookup doesn't leave the memory,
+     * only mapping the book takes longer the first time.
+     */
+    private static final long DEADLINE = 100;
+
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final PolyglotKey key;
+    private String mappedPath = "";
+    private MappedByteBuffer book;
+
+    /**
+     * Creates a book provider with the random numbers of the Polyglot format.
+     */
+    public PolyglotBook() {
+        this(PolyglotKey.getDefault());
+    }
+
+    /**
+     * Creates a book provider whose books are keyed by other random numbers.
+     * @param key the calculation of the keys of the books.
+     */
+    public PolyglotBook(PolyglotKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Provides a list of recommended {@code Move}s for the given situation on the {@code Board}.
+     * @param board The current board.
+     * @return The legal moves of the book in random order weighted by the book, which is empty if the book
+     * doesn't know the position or no book is set.
+     */
+    @Override
+    public List<Move> getRecommendedMoves(Board board, Options options) {
+        MappedByteBuffer entries = map(options.getBookFile());
+        if (entries == null) {
+            return new ArrayList<>();
+        }
+        long hash = key.hash(board);
+        List<Move> legalMoves = new Rule().getLegalMoves(board, board.getNextColor());
+        List<Move> moves = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (int entry = findFirst(entries, hash); entry < entries.capacity() / ENTRY_SIZE &&
+                entries.getLong(entry * ENTRY_SIZE) == hash; entry++) {
+            Move move = decode(board, Short.toUnsignedInt(entries.getShort(entry * ENTRY_SIZE + 8)));
+            // a move of another position with the same key is not legal here
+            if (move != null && legalMoves.contains(move) && !moves.contains(move)) {
+                moves.add(move);
+                weights.add(Short.toUnsignedInt(entries.getShort(entry * ENTRY_SIZE + 10)));
+            }
+        }
+        logger.info("Found [" + moves.size() + " moves] in the book for key [" + Long.toHexString(hash) + "]");
+        return orderByWeight(moves, weights);
+    }
+
+    @Override
+    public long getDeadline() {
+        return DEADLINE;
+    }
+
+    /**
+     * Maps the book into memory, unless it is already mapped.
+     * @param path the path of the book, which is empty if no book is used.
+     * @return the entries of the book or null if there is no book.
+     */
+    private synchronized MappedByteBuffer map(String path) {
+        if (path.equals(mappedPath)) {
+            return book;
+        }
+        mappedPath = path;
+        book = null;
+        if (path.isEmpty()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            book = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size() - channel.size() % ENTRY_SIZE);
+            logger.info("Mapped the book [" + path + "] with [" + book.capacity() / ENTRY_SIZE + " entries]");
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Could not map the book [" + path + "]: " + e.getMessage());
+        }
+        return book;
+    }
+
+    /**
+     * Searches the first entry of a key. The keys are compared unsigned, like the book is sorted.
+     * @return the index of the first entry whose key is not smaller than the given one.
+     */
+    private static int findFirst(MappedByteBuffer entries, long hash) {
+        int low = 0;
+        int high = entries.capacity() / ENTRY_SIZE;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(entries.getLong(middle * ENTRY_SIZE), hash) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Decodes a move of the book. The bits hold, from the lowest on, the row and the line of the target field,
+     * the row and the line of the start field and the promotion. Castling is stored as the king capturing its rook.
+     * @return the move or null if there is no piece on its start field.
+     */
+    private static Move decode(Board board, int encoded) {
+        Field from = new Field(Line.values()[encoded >> 9 & 7], Row.values()[encoded >> 6 & 7]);
+        Field to = new Field(Line.values()[encoded >> 3 & 7], Row.values()[encoded & 7]);
+        Type promoteTo = switch (encoded >> 12 & 7) {
+            case 1 -> Type.KNIGHT;
+            case 2 -> Type.BISHOP;
+            case 3 -> Type.ROOK;
+            case 4 -> Type.QUEEN;
+            default -> null;
+        };
+        if (board.getPiece(from) == null) {
+            return null;
+        }
+        return Converter.sanitizeMove(board, new Move(from, to, promoteTo));
+    }
+
+    /**
+     * Orders the moves randomly, so that every position is taken by one of the remaining moves with a probability
+     * proportional to its weight. If all weights are 0, all moves are equally probable.
+     */
+    private static List<Move> orderByWeight(List<Move> moves, List<Integer> weights) {
+        List<Move> remainingMoves = new ArrayList<>(moves);
+        List<Integer> remainingWeights = new ArrayList<>(weights);
+        List<Move> orderedMoves = new ArrayList<>();
+        while (!remainingMoves.isEmpty()) {
+            int total = remainingWeights.stream().mapToInt(Integer::intValue).sum();
+            int index = 0;
+            if (total == 0) {
+                index = ThreadLocalRandom.current().nextInt(remainingMoves.size());
+            } else {
+                int target = ThreadLocalRandom.current().nextInt(total);
+                while (target >= remainingWeights.get(index)) {
+                    target -= remainingWeights.get(index);
+                    index++;
+                }
+            }
+            orderedMoves.add(remainingMoves.remove(index));
+            remainingWeights.remove(index);
+        }
+        return orderedMoves;
+    }
+}
@@ -0,0 +1,140 @@
+package de.flyndre.flengine.moveprovider.mate;
+
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.converter.StdoutWriter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.moveprovider.MoveProvider;
+import de.flyndre.flengine.moveprovider.minmax.TranspositionTable;
+import de.flyndre.flengine.rules.Rule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * An implementation of {@code MoveProvider} that only looks for forced mates, as requested by the UCI command "go mate N".
+ * It is a depth-first search which is iteratively deepened by one move up to the requested number of moves.
+ * The attacking side only tries moves that give check, the defending side tries all its moves.
+ * Proven and refuted positions of the attacker are stored in a transposition table, so that transpositions
+ * and the previous iterations are not searched again.
+ * Mates which need a quiet move of the attacker are not found. If the gui stops the calculation, no mate is returned.
+ */
+public class MateSearch implements MoveProvider {
+
+    /**
+     * Size of the transposition table in megabytes.
+     */
+    private static final int TABLE_SIZE = 16;
+    /**
+     * Stored rating of an attacker position in which the mate was proven.
+     */
+    private static final int PROVEN = 1;
+    /**
+     * Stored rating of an attacker position in which no mate was found.
+     */
+    private static final int REFUTED = 0;
+
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final Rule rule = new Rule();
+    private final TranspositionTable transpositionTable = new TranspositionTable(TABLE_SIZE);
+    private long nodes;
+    /**
+     * The options of the current search, which tell whether the gui stopped it.
+     */
+    private Options options;
+
+    /**
+     * Provides the first move of the shortest forced mate within the number of moves of {@code Options.getMateSearch()}.
+     * @param board The current board.
+     * @return A list containing the mating move or an empty list if no mate was found.
+     */
+    @Override
+    public synchronized List<Move> getRecommendedMoves(Board board, Options options) {
+        logger.info("Searching mate in [" + options.getMateSearch() + "] moves.");
+        transpositionTable.clear();
+        nodes = 0;
+        this.options = options;
+        long startTime = System.currentTimeMillis();
+
+        for (int moves = 1; moves <= options.getMateSearch(); moves++) {
+            Move mate = findMate(board, moves);
+            if (mate != null) {
+                long time = System.currentTimeMillis() - startTime;
+                StdoutWriter.writeToStdout("info depth " + (2 * moves - 1) + " score mate " + moves + " nodes " + nodes +
+                        " time " + time + " pv " + Converter.convertMoveToString(mate));
+                logger.info("Found mate in [" + moves + "] moves: [" + mate + "]");
+                return List.of(mate);
+            }
+        }
+        logger.info("No mate found in [" + options.getMateSearch() + "] moves.");
+        return new ArrayList<>();
+    }
+
+    /**
+     * Searches a move of the side to move which forces mate within the given number of moves.
+     * @param board the board with the attacker to move.
+     * @param moves the number of moves of the attacker.
+     * @return the first move of the mate or null if there is none.
+     */
+    private Move findMate(Board board, int moves) {
+        nodes++;
+        if (options.isStopped()) {
+            return null;
+        }
+        TranspositionTable.Entry entry = transpositionTable.probe(board.getHash());
+        if (entry != null) {
+            if (entry.getRating() == PROVEN && entry.getDepth() <= moves && entry.getMove() != null) {
+                return entry.getMove();
+            }
+            if (entry.getRating() == REFUTED && entry.getDepth() >= moves) {
+                return null;
+            }
+        }
+
+        Color defender = board.getNextColor() == Color.WHITE ? Color.BLACK : Color.WHITE;
+        for (Move move : rule.getLegalMoves(board, board.getNextColor())) {
+            Board newBoard = board.deepClone();
+            newBoard.playMove(move);
+            if (rule.isChecked(newBoard, defender) && isMated(newBoard, moves)) {
+                transpositionTable.store(board.getHash(), move, PROVEN, moves, TranspositionTable.EXACT);
+                return move;
+            }
+        }
+        // a stopped search didn't refute all moves
+        if (options.isStopped()) {
+            return null;
+        }
+        transpositionTable.store(board.getHash(), null, REFUTED, moves, TranspositionTable.UPPER_BOUND);
+        return null;
+    }
+
+    /**
+     * Checks whether the defender, who is on turn, gets mated within the given number of moves of the attacker,
+     * including the move the attacker just played.
+     * @param board the board with the defender to move.
+     * @param moves the number of moves of the attacker.
+     * @return true if every defence leads to mate.
+     */
+    private boolean isMated(Board board, int moves) {
+        nodes++;
+        List<Move> defences = rule.getLegalMoves(board, board.getNextColor());
+        if (defences.isEmpty()) {
+            // no legal move while in check is a mate, otherwise it is a stalemate
+            return rule.isChecked(board, board.getNextColor());
+        }
+        if (moves == 1) {
+            return false;
+        }
+        for (Move defence : defences) {
+            Board newBoard = board.deepClone();
+            newBoard.playMove(defence);
+            if (findMate(newBoard, moves - 1) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
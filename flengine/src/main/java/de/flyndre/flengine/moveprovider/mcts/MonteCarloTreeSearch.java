@@ -0,0 +1,173 @@
+package de.flyndre.flengine.moveprovider.mcts;
+
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.converter.StdoutWriter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.moveprovider.MoveProvider;
+import de.flyndre.flengine.moveprovider.minmax.ClassicalEvaluator;
+import de.flyndre.flengine.moveprovider.minmax.Evaluator;
+import de.flyndre.flengine.moveprovider.minmax.MoveOrdering;
+import de.flyndre.flengine.rules.Rule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * An implementation of {@code MoveProvider} that uses Monte Carlo tree search to calculate the best move.
+ * Every playout selects a path through the tree with the UCT formula, adds the first unvisited node and rates it
+ * by a short random rollout which ends with the static evaluation. All worker threads play out on the same tree,
+ * virtual losses keep them on different paths.
+ * The number of playouts is set by {@code Options.getMctsPlayouts()} and limited by the {@code Difficulty},
+ * the moves are ordered by their visits.
+ * If the calculation is stopped, the moves are ordered by the visits so far.
+ */
+public class MonteCarloTreeSearch implements MoveProvider {
+
+    /**
+     * Weight of the exploration term of the UCT formula.
+     */
+    private static final double EXPLORATION = Math.sqrt(2);
+    /**
+     * Maximal number of random moves of a rollout before the board is evaluated.
+     */
+    private static final int ROLLOUT_DEPTH = 4;
+    /**
+     * Centipawns which make the winning chance of the evaluated side about 73 percent.
+     */
+    private static final double EVALUATION_SCALE = 400;
+
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+    /**
+     * The pool which runs the playout workers. It is kept for the lifetime of the provider.
+     */
+    private final ForkJoinPool forkJoinPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 2));
+    /**
+     * The static evaluation at the end of the rollouts.
+     */
+    private final Evaluator evaluator = new ClassicalEvaluator();
+
+    /**
+     * Provides a list of recommended {@code Move}s for the given situation on the {@code Board}.
+     * @param board The current board.
+     * @return A list of all legal moves, the most visited first, which is empty if there are none.
+     */
+    @Override
+    public List<Move> getRecommendedMoves(Board board, Options options) {
+        // an infinite search runs until the gui stops it
+        int maxPlayouts = options.isInfinite() ? Integer.MAX_VALUE :
+                Math.min(options.getMctsPlayouts(), options.getDifficulty().getMaxPlayouts());
+        logger.info("Starting Monte Carlo tree search with [" + maxPlayouts + "] playouts.");
+        long startTime = System.currentTimeMillis();
+        Node root = new Node(null, board.deepClone());
+        AtomicInteger playouts = new AtomicInteger();
+
+        List<ForkJoinTask<?>> workers = IntStream.range(0, forkJoinPool.getParallelism())
+                .<ForkJoinTask<?>>mapToObj(i -> ForkJoinTask.adapt(() -> runPlayouts(root, playouts, maxPlayouts, options)))
+                .toList();
+        forkJoinPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(workers)));
+
+        List<Node> children = root.getChildren() != null ? root.getChildren() : new ArrayList<>();
+        List<Move> moves = children.stream()
+                .sorted(Comparator.comparingInt(Node::getVisits).reversed())
+                .map(Node::getMove)
+                .toList();
+        if (!moves.isEmpty()) {
+            StdoutWriter.writeToStdout("info nodes " + root.getVisits() + " time " + (System.currentTimeMillis() - startTime) +
+                    " pv " + Converter.convertMoveToString(moves.get(0)));
+        }
+        return moves;
+    }
+
+    /**
+     * Plays out on the shared tree until all playouts of the search are taken or the gui stops the calculation.
+     * Every worker uses its own {@code Rule}, because it is not thread safe.
+     */
+    private void runPlayouts(Node root, AtomicInteger playouts, int maxPlayouts, Options options) {
+        Rule rule = new Rule();
+        while (!options.isStopped() && playouts.getAndIncrement() < maxPlayouts) {
+            playout(root, rule);
+        }
+    }
+
+    /**
+     * Selects a path from the root to a leaf, rates the leaf by a rollout and adds the result to all nodes of the path.
+     */
+    private void playout(Node root, Rule rule) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        node.addVirtualLoss();
+        path.add(node);
+        while (node == root || node.getVisits() > 0) {
+            List<Node> children = node.expand(rule);
+            if (children.isEmpty()) {
+                break;
+            }
+            node = select(node, children);
+            node.addVirtualLoss();
+            path.add(node);
+        }
+
+        // the rollout rates the leaf for the side to move, the leaf itself is rated for the side which moved into it
+        double result = 1 - rollout(node.getBoard(), rule);
+        for (int i = path.size() - 1; i >= 0; i--) {
+            path.get(i).update(result);
+            result = 1 - result;
+        }
+    }
+
+    /**
+     * @return the child with the highest upper confidence bound.
+     */
+    private Node select(Node parent, List<Node> children) {
+        int parentVisits = parent.getVisits();
+        Node bestChild = children.get(0);
+        double bestUct = Double.NEGATIVE_INFINITY;
+        for (Node child : children) {
+            double uct = child.uct(parentVisits, EXPLORATION);
+            if (uct > bestUct) {
+                bestUct = uct;
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Plays a few random moves, preferring the most valuable capture, and evaluates the reached board.
+     * @param board the board to rate, which is not changed.
+     * @return the chance to win of the side to move on the given board, between 0 and 1.
+     */
+    private double rollout(Board board, Rule rule) {
+        Board rolloutBoard = board.deepClone();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double result = -1;
+        int plies = 0;
+        while (result < 0) {
+            List<Move> moves = rule.getLegalMoves(rolloutBoard, rolloutBoard.getNextColor());
+            if (moves.isEmpty()) {
+                // the side to move is mated or stalemated
+                result = rule.isChecked(rolloutBoard, rolloutBoard.getNextColor()) ? 0 : 0.5;
+            } else if (plies == ROLLOUT_DEPTH) {
+                result = 1 / (1 + Math.exp(-evaluator.evaluate(rolloutBoard) / EVALUATION_SCALE));
+            } else {
+                Move bestCapture = moves.stream()
+                        .max(Comparator.comparingInt(move -> MoveOrdering.captureGain(rolloutBoard, move)))
+                        .orElseThrow();
+                Move move = random.nextBoolean() && !MoveOrdering.isQuiet(rolloutBoard, bestCapture) ?
+                        bestCapture : moves.get(random.nextInt(moves.size()));
+                rolloutBoard.playMove(move);
+                plies++;
+            }
+        }
+        return plies % 2 == 0 ? result : 1 - result;
+    }
+}
@@ -0,0 +1,113 @@
+package de.flyndre.flengine.moveprovider.mcts;
+
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.rules.Rule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A node of the search tree of the {@code MonteCarloTreeSearch}.
+ * The tree is shared by all playout threads: the statistics are atomic and the children are created once under the
+ * lock of the node. Threads which currently pass the node add a virtual loss, so that the others prefer different paths.
+ */
+class Node {
+
+    private final Move move;
+    private final Board board;
+    private final AtomicInteger visits = new AtomicInteger();
+    private final AtomicInteger virtualLosses = new AtomicInteger();
+    /**
+     * Sum of the playout results from the view of the side which played the move into this node.
+     */
+    private final DoubleAdder value = new DoubleAdder();
+    private volatile List<Node> children;
+
+    /**
+     * Creates a node.
+     * @param move the move which led to the board or null for the root.
+     * @param board the board after the move.
+     */
+    Node(Move move, Board board) {
+        this.move = move;
+        this.board = board;
+    }
+
+    /**
+     * Returns the children of the node and creates them on the first call.
+     * @param rule the rule used to generate the legal moves.
+     * @return one child per legal move, empty if the game is over on this board.
+     */
+    List<Node> expand(Rule rule) {
+        List<Node> expandedChildren = children;
+        if (expandedChildren == null) {
+            synchronized (this) {
+                if (children == null) {
+                    List<Node> newChildren = new ArrayList<>();
+                    for (Move legalMove : rule.getLegalMoves(board, board.getNextColor())) {
+                        Board newBoard = board.deepClone();
+                        newBoard.playMove(legalMove);
+                        newChildren.add(new Node(legalMove, newBoard));
+                    }
+                    children = newChildren;
+                }
+                expandedChildren = children;
+            }
+        }
+        return expandedChildren;
+    }
+
+    /**
+     * Rates the node for the selection by its parent with the UCT formula.
+     * Running playouts through the node count as lost visits.
+     * @param parentVisits the visits of the parent.
+     * @param exploration the weight of the exploration term.
+     * @return the upper confidence bound or {@code Double.POSITIVE_INFINITY} if the node was never visited.
+     */
+    double uct(int parentVisits, double exploration) {
+        int effectiveVisits = visits.get() + virtualLosses.get();
+        if (effectiveVisits == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return value.sum() / effectiveVisits + exploration * Math.sqrt(Math.log(Math.max(1, parentVisits)) / effectiveVisits);
+    }
+
+    /**
+     * Marks that a playout passes the node.
+     */
+    void addVirtualLoss() {
+        virtualLosses.incrementAndGet();
+    }
+
+    /**
+     * Adds the result of a finished playout and removes its virtual loss.
+     * @param result the result from the view of the side which played the move into this node, between 0 and 1.
+     */
+    void update(double result) {
+        value.add(result);
+        visits.incrementAndGet();
+        virtualLosses.decrementAndGet();
+    }
+
+    Move getMove() {
+        return move;
+    }
+
+    Board getBoard() {
+        return board;
+    }
+
+    int getVisits() {
+        return visits.get();
+    }
+
+    /**
+     * @return the created children or null if the node wasn't expanded yet.
+     */
+    List<Node> getChildren() {
+        return children;
+    }
+}
@@ -0,0 +1,60 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Board;
+
+/**
+ * An implementation of {@code Evaluator} that caches the ratings of another evaluator by the Zobrist hash of the position.
+ * The same positions are evaluated again and again, in transpositions and whenever the pruning of the search
+ * looks at a node more than once, so they only have to be rated once.
+ * The cache is shared by all search threads without locks: every entry is a single long which holds the upper half
+ * of the hash and the rating, so it can't be torn by a concurrent write. The index is taken from the lower half
+ * of the hash, so both halves together identify the position. A new rating always replaces the old one.
+ */
+public class CachedEvaluator implements Evaluator {
+
+    private static final int ENTRY_BYTES = 8;
+    private static final long KEY_MASK = 0xFFFFFFFF00000000L;
+
+    private final Evaluator evaluator;
+    private long[] entries;
+
+    /**
+     * Creates a new cache.
+     * @param evaluator the evaluator whose ratings are cached.
+     * @param sizeInMegabytes the maximal memory of the cache. The number of entries is rounded down to a power of two.
+     */
+    public CachedEvaluator(Evaluator evaluator, int sizeInMegabytes) {
+        this.evaluator = evaluator;
+        resize(sizeInMegabytes);
+    }
+
+    /**
+     * Resizes the cache, which clears all entries.
+     * @param sizeInMegabytes the maximal memory of the cache. The number of entries is rounded down to a power of two.
+     */
+    public synchronized void resize(int sizeInMegabytes) {
+        long size = Math.max(1L, (long) sizeInMegabytes * 1024 * 1024 / ENTRY_BYTES);
+        entries = new long[Integer.highestOneBit((int) Math.min(size, 1 << 30))];
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        long hash = board.getHash();
+        // a concurrent resize replaces the array, so the same one is used for reading and writing
+        long[] currentEntries = entries;
+        int index = (int) hash & (currentEntries.length - 1);
+        long entry = currentEntries[index];
+        // an empty entry is 0, which must not be taken for a rating of 0
+        if (entry != 0 && (entry & KEY_MASK) == (hash & KEY_MASK)) {
+            return (int) entry;
+        }
+        int rating = evaluator.evaluate(board);
+        currentEntries[index] = hash & KEY_MASK | rating & 0xFFFFFFFFL;
+        return rating;
+    }
+
+    @Override
+    public void attachAccumulator(Board board) {
+        evaluator.attachAccumulator(board);
+    }
+}
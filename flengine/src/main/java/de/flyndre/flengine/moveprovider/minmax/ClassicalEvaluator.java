@@ -0,0 +1,67 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Field;
+import de.flyndre.flengine.datamodel.PieceSquareTable;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.datamodel.enums.Line;
+import de.flyndre.flengine.datamodel.enums.Row;
+
+/**
+ * An implementation of {@code Evaluator} that rates the material, the fields of the pieces and the pawn structure.
+ * The middlegame and the endgame values of the pieces are kept up to date by the {@code Board} itself,
+ * the pawn structure is looked up in the {@code PawnTable} of the current thread. The pawn shields of the kings
+ * and blocked passed pawns depend on the other pieces as well, so they are rated from the masks of the pawn table.
+ * Both ratings are blended by the game phase. Endgames which the {@code MaterialTable} knows
+ * get its specialised evaluation instead.
+ * @see PieceSquareTable
+ */
+public class ClassicalEvaluator implements Evaluator {
+
+    /**
+     * Bonus in the middlegame for every own pawn on the two lines in front of the king.
+     */
+    private static final int SHIELD_PAWN = 12;
+
+    /**
+     * The pawn tables of all threads which evaluate. Each thread uses its own one, because they are not synchronized.
+     * The table of a thread is collected together with the thread, so retired workers don't keep their tables.
+     */
+    private final ThreadLocal<PawnTable> pawnTables = ThreadLocal.withInitial(PawnTable::new);
+
+    @Override
+    public int evaluate(Board board) {
+        Integer specialised = MaterialTable.evaluate(board);
+        if (specialised != null) {
+            return specialised;
+        }
+        PawnTable.Entry pawns = pawnTables.get().probe(board);
+        int middlegame = board.getMiddlegameValue() + pawns.getMiddlegame()
+                + SHIELD_PAWN * (shieldPawns(pawns, board, Color.WHITE) - shieldPawns(pawns, board, Color.BLACK));
+        int endgame = board.getEndgameValue() + pawns.getEndgame()
+                - blockedPassedPawns(pawns, board, Color.WHITE) + blockedPassedPawns(pawns, board, Color.BLACK);
+        int evaluation = PieceSquareTable.taper(middlegame, endgame, board.getPhase());
+        return board.getNextColor() == Color.WHITE ? evaluation : -evaluation;
+    }
+
+    private int shieldPawns(PawnTable.Entry pawns, Board board, Color color) {
+        Field kingField = board.getKingField(color);
+        return kingField == null ? 0 : pawns.getShieldPawns(color, kingField);
+    }
+
+    /**
+     * Rates the passed pawns of a color whose next field is occupied by a piece. They lose half of their endgame bonus.
+     * @return the endgame penalty, which is positive.
+     */
+    private int blockedPassedPawns(PawnTable.Entry pawns, Board board, Color color) {
+        int penalty = 0;
+        for (long passed = pawns.getPassedPawns(color); passed != 0; passed &= passed - 1) {
+            int field = Long.numberOfTrailingZeros(passed);
+            int stop = color == Color.WHITE ? field + 8 : field - 8;
+            if (stop >= 0 && stop < 64 && board.getPiece(new Field(Line.values()[stop / 8], Row.values()[stop % 8])) != null) {
+                penalty += PawnTable.PASSED_ENDGAME[color == Color.WHITE ? field / 8 : 7 - field / 8] / 2;
+            }
+        }
+        return penalty;
+    }
+}
@@ -0,0 +1,24 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Board;
+
+/**
+ * Statically rates a {@code Board} without searching any move, for the leaves of a search.
+ */
+public interface Evaluator {
+
+    /**
+     * Rates the given board.
+     * @param board the board to rate, which is not changed.
+     * @return the rating in centipawns from the view of the side to move.
+     */
+    int evaluate(Board board);
+
+    /**
+     * Attaches the accumulator of the evaluator to the root board of a search, so that the boards of the search tree,
+     * which are copies of it, keep it up to date. Evaluators without an accumulator don't change the board.
+     * @param board the root board of the search.
+     */
+    default void attachAccumulator(Board board) {
+    }
+}
@@ -0,0 +1,187 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Field;
+import de.flyndre.flengine.datamodel.Piece;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.datamodel.enums.Line;
+import de.flyndre.flengine.datamodel.enums.Row;
+import de.flyndre.flengine.datamodel.enums.Type;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Endgames which the search recognizes by the material signature of the board, see {@code Board.getMaterialKey()}.
+ * Recognizers return an exact rating, so the search doesn't need to look deeper, for example a draw by insufficient
+ * material or a pawn which can't be stopped any more. Evaluations replace the static evaluation in endgames where
+ * the material alone doesn't show how to make progress, like the mate with bishop and knight.
+ */
+public class MaterialTable {
+
+    /**
+     * Rating of a won endgame without a known distance to mate. It is far below the mate ratings,
+     * so the search still prefers a found mate.
+     */
+    public static final int KNOWN_WIN = 10000;
+
+    private static final Map<Long, Function<Board, Integer>> RECOGNIZERS = new HashMap<>();
+    private static final Map<Long, Function<Board, Integer>> EVALUATIONS = new HashMap<>();
+
+    static {
+        // none of these can force a mate
+        for (String signature : List.of("KvK", "KBvK", "KNvK", "KNNvK")) {
+            add(RECOGNIZERS, signature, (board, strongSide) -> 0);
+        }
+        add(RECOGNIZERS, "KPvK", MaterialTable::recognizeKingAndPawn);
+        add(EVALUATIONS, "KBNvK", MaterialTable::evaluateBishopAndKnight);
+    }
+
+    private MaterialTable() {
+    }
+
+    /**
+     * Rates an endgame of a certain material signature.
+     */
+    @FunctionalInterface
+    interface Recognizer {
+        /**
+         * @param board the board to rate.
+         * @param strongSide the color which owns the pieces of the first part of the signature.
+         * @return the rating from the view of the side to move or null if the position isn't recognized.
+         */
+        Integer rate(Board board, Color strongSide);
+    }
+
+    /**
+     * Looks up the exact rating of a recognized endgame.
+     * @param board the board to rate.
+     * @return the rating from the view of the side to move or null if the position isn't recognized.
+     */
+    public static Integer recognize(Board board) {
+        return rate(RECOGNIZERS, board);
+    }
+
+    /**
+     * Looks up the specialised evaluation of an endgame.
+     * @param board the board to rate.
+     * @return the evaluation from the view of the side to move or null if there is none for the material.
+     */
+    public static Integer evaluate(Board board) {
+        return rate(EVALUATIONS, board);
+    }
+
+    /**
+     * Returns the material signature of a notation like "KBNvK", with the pieces of the given color before the "v".
+     * @param signature the pieces of both sides as upper case letters, separated by "v".
+     * @param strongSide the color of the pieces before the "v".
+     * @return the material key which a board with these pieces has.
+     */
+    public static long materialKey(String signature, Color strongSide) {
+        String[] sides = signature.split("v");
+        Color weakSide = strongSide == Color.WHITE ? Color.BLACK : Color.WHITE;
+        return sideKey(sides[0], strongSide) + sideKey(sides[1], weakSide);
+    }
+
+    private static long sideKey(String pieces, Color color) {
+        long key = 0;
+        for (char letter : pieces.toCharArray()) {
+            Type type = switch (letter) {
+                case 'K' -> Type.KING;
+                case 'Q' -> Type.QUEEN;
+                case 'R' -> Type.ROOK;
+                case 'B' -> Type.BISHOP;
+                case 'N' -> Type.KNIGHT;
+                case 'P' -> Type.PAWN;
+                default -> throw new IllegalArgumentException("Unknown piece [" + letter + "] in material signature.");
+            };
+            key += Board.materialKey(new Piece(type, color));
+        }
+        return key;
+    }
+
+    /**
+     * Adds a recognizer for the signature with white and with black as the strong side.
+     */
+    private static void add(Map<Long, Function<Board, Integer>> table, String signature, Recognizer recognizer) {
+        table.put(materialKey(signature, Color.WHITE), board -> recognizer.rate(board, Color.WHITE));
+        table.put(materialKey(signature, Color.BLACK), board -> recognizer.rate(board, Color.BLACK));
+    }
+
+    private static Integer rate(Map<Long, Function<Board, Integer>> table, Board board) {
+        Function<Board, Integer> recognizer = table.get(board.getMaterialKey());
+        return recognizer == null ? null : recognizer.apply(board);
+    }
+
+    /**
+     * Recognizes king and pawn against king if the defending king stands in front of a rook pawn, which is a draw,
+     * or if it is outside the square of the pawn, which wins. Progress of the pawn is rated higher.
+     */
+    private static Integer recognizeKingAndPawn(Board board, Color strongSide) {
+        Field pawn = find(board, new Piece(Type.PAWN, strongSide));
+        Field strongKing = find(board, new Piece(Type.KING, strongSide));
+        Field weakKing = find(board, new Piece(Type.KING, strongSide == Color.WHITE ? Color.BLACK : Color.WHITE));
+        boolean white = strongSide == Color.WHITE;
+        int pawnLine = pawn.getLine().ordinal();
+        Field promotionField = new Field(white ? Line.EIGHT : Line.ONE, pawn.getRow());
+        int weakKingAdvance = white ? weakKing.getLine().ordinal() - pawnLine : pawnLine - weakKing.getLine().ordinal();
+
+        boolean rookPawn = pawn.getRow() == Row.A || pawn.getRow() == Row.H;
+        if (rookPawn && weakKing.getRow() == pawn.getRow() && weakKingAdvance > 0) {
+            return 0;
+        }
+
+        // a pawn on its start line can advance two lines at once
+        int pawnDistance = Math.min(5, white ? 7 - pawnLine : pawnLine);
+        int strongKingAdvance = white ? strongKing.getLine().ordinal() - pawnLine : pawnLine - strongKing.getLine().ordinal();
+        boolean pathBlocked = strongKing.getRow() == pawn.getRow() && strongKingAdvance > 0;
+        int tempo = board.getNextColor() == strongSide ? 0 : 1;
+        if (!pathBlocked && pawnDistance < distance(weakKing, promotionField) - tempo) {
+            int rating = KNOWN_WIN + 10 * (7 - pawnDistance);
+            return board.getNextColor() == strongSide ? rating : -rating;
+        }
+        return null;
+    }
+
+    /**
+     * Evaluates king, bishop and knight against king. The defending king has to be driven into a corner
+     * of the color of the bishop, so the evaluation grows when it gets closer to such a corner
+     * and when the attacking king gets closer to it.
+     */
+    private static Integer evaluateBishopAndKnight(Board board, Color strongSide) {
+        Field bishop = find(board, new Piece(Type.BISHOP, strongSide));
+        Field strongKing = find(board, new Piece(Type.KING, strongSide));
+        Field weakKing = find(board, new Piece(Type.KING, strongSide == Color.WHITE ? Color.BLACK : Color.WHITE));
+        boolean darkBishop = (bishop.getLine().ordinal() + bishop.getRow().ordinal()) % 2 == 0;
+        int line = weakKing.getLine().ordinal();
+        int row = weakKing.getRow().ordinal();
+        // a1 and h8 are dark, a8 and h1 are light
+        int cornerDistance = darkBishop ?
+                Math.min(line + row, 14 - line - row) :
+                Math.min(7 - line + row, line + 7 - row);
+        int rating = KNOWN_WIN + 20 * (14 - cornerDistance) + 10 * (7 - distance(strongKing, weakKing));
+        return board.getNextColor() == strongSide ? rating : -rating;
+    }
+
+    /**
+     * @return the number of king moves between the fields.
+     */
+    private static int distance(Field from, Field to) {
+        return Math.max(Math.abs(from.getLine().ordinal() - to.getLine().ordinal()),
+                Math.abs(from.getRow().ordinal() - to.getRow().ordinal()));
+    }
+
+    private static Field find(Board board, Piece piece) {
+        for (Line line : Line.values()) {
+            for (Row row : Row.values()) {
+                Field field = new Field(line, row);
+                if (piece.equals(board.getPiece(field))) {
+                    return field;
+                }
+            }
+        }
+        throw new IllegalStateException("The board has no " + piece + ".");
+    }
+}
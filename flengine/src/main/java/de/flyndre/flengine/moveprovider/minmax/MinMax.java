@@ -1,5 +1,7 @@
 package de.flyndre.flengine.moveprovider.minmax;
 
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.converter.StdoutWriter;
 import de.flyndre.flengine.datamodel.Board;
 import de.flyndre.flengine.datamodel.Move;
 import de.flyndre.flengine.datamodel.Options;
@@ -7,42 +9,253 @@ import de.flyndre.flengine.moveprovider.MoveProvider;
 import de.flyndre.flengine.rules.Rule;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
 import java.util.logging.Logger;
 
+import static de.flyndre.flengine.moveprovider.minmax.RecursiveMinMaxTask.INFINITY;
+import static de.flyndre.flengine.moveprovider.minmax.RecursiveMinMaxTask.MATE;
+import static de.flyndre.flengine.moveprovider.minmax.RecursiveMinMaxTask.MATE_BOUND;
+
 /**
  * An implementation of {@code MoveProvider} that uses the Minimax-Algorithm to calculate the best move.
  * The calculation is being calculated by multithreading.
+ * The search is iteratively deepened up to the recursion depth of the {@code Options} or, if the go command gave
+ * a clock, until the {@code TimeManager} decides that another iteration would take too long. The search is aborted
+ * at once if the gui stops it or if its time is up, then the moves of the last finished iteration are returned.
+ * If the options request several principal variations, the search keeps that number of best moves exact
+ * instead of using an aspiration window.
+ * The {@code Difficulty} of the options limits the depth and the nodes of the search and adds noise to the evaluation,
+ * so weaker difficulties play the best move of a cheaper search.
+ * Every finished iteration is reported to the gui with its principal variations and the statistics of the search,
+ * in between the search reports its progress about once per second. From the second iteration on,
+ * the root is searched with an aspiration window around the rating of the previous iteration.
+ * The transposition table is kept between the searches of a game. If the opponent plays the expected move,
+ * the next search finds the positions of the previous principal variation already searched.
  * @author Ruben
  */
 public class MinMax implements MoveProvider {
+    /**
+     * Half width of the first aspiration window in centipawns. It is doubled after every failed search.
+     */
+    private static final int ASPIRATION_WINDOW = 50;
+    /**
+     * Maximal depth of a search which is limited by time instead of by the recursion depth.
+     */
+    private static final int MAX_DEPTH = 64;
+
     Rule legalMoveProvider = new Rule();
     private final Logger logger = Logger.getLogger(this.getClass().getName());
+    /**
+     * The pool which runs the forked part of the search tree. It is kept for the lifetime of the provider,
+     * so that the worker threads don't have to be started again for every search.
+     */
+    private final ForkJoinPool forkJoinPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 2));
+    /**
+     * The transposition table and the move ordering tables of the search. They are kept between the searches of a game
+     * and aged when a new search starts.
+     */
+    private final SearchContext context = new SearchContext();
+    /**
+     * The principal variations of the root moves collected by the search, which start with the root move.
+     */
+    private final Map<Move, List<Move>> principalVariations = new ConcurrentHashMap<>();
 
     /**
      * Provides a list of recommended {@code Move}s for the given situation on the {@code Board}.
+     * The searches of the provider run one after another, because they share the search context.
      * @param board The current board.
      * @return A list of recommended moves in this situation which may be empty if none were found.
      */
     @Override
-    public List<Move> getRecommendedMoves(Board board, Options options) {
+    public synchronized List<Move> getRecommendedMoves(Board board, Options options) {
         logger.info("Starting Calculation of Minimax.");
-        List<Move> availableMoves = legalMoveProvider.getLegalMoves(board, board.getNextColor());
+        context.newSearch(options, board.getNextColor());
+        principalVariations.clear();
+        List<Move> rootMoves = legalMoveProvider.getLegalMoves(board, board.getNextColor());
 
+        // a previous search of the game may already know the best move, for example if the opponent played the expected move
+        TranspositionTable.Entry entry = context.getTranspositionTable().probe(board.getHash());
+        if (entry != null && entry.getMove() != null && rootMoves.contains(entry.getMove())) {
+            logger.info("Starting with move [" + entry.getMove() + "] of a previous search.");
+            Move hashMove = entry.getMove();
+            rootMoves = rootMoves.stream().sorted(Comparator.comparing(move -> !move.equals(hashMove))).toList();
+        }
 
-        HashMap<Move, Integer> evaluatedMoves = new HashMap<>();
-        HashMap<Move, ForkJoinTask<Integer>> taskHashMap = new HashMap<>();
-        ForkJoinPool forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors()-2);
+        // the boards of the search tree are copies of the root, so they take over its accumulator and only update it
+        Board root = board.deepClone();
+        context.getEvaluator().attachAccumulator(root);
+
+        int rating = 0;
+        // an infinite search runs until the gui stops it, so the difficulty doesn't limit its depth
+        int maxDepth = options.isInfinite() ? MAX_DEPTH : Math.min(options.getDifficulty().getMaxDepth(),
+                TimeManager.isTimed(options, board.getNextColor()) ? MAX_DEPTH : options.getRecursionDepth());
+        for (int depth = 1; depth <= maxDepth && TimeManager.canStartIteration(options, board.getNextColor()); depth++) {
+            context.startIteration(depth);
+            Map<Move, Integer> ratings = options.getMultiPv() > 1 ?
+                    searchMultiPv(root, rootMoves, depth, options) :
+                    searchAspirationWindow(root, rootMoves, depth, rating, options);
+
+            // the unfinished iteration is dropped, so the moves keep the order of the last finished one
+            if (context.isAborted()) {
+                logger.info("Search aborted in depth [" + depth + "].");
+                break;
+            }
+
+            // the sort is stable, so moves with the same bound keep the order of the previous iteration
+            rootMoves = rootMoves.stream().sorted(Comparator.comparing(ratings::get).reversed()).toList();
+            if (rootMoves.isEmpty()) {
+                break;
+            }
+            rating = ratings.get(rootMoves.get(0));
+            context.getTranspositionTable().store(board.getHash(), rootMoves.get(0), rating, depth, TranspositionTable.EXACT);
+            if (options.getMultiPv() > 1) {
+                for (int line = 0; line < Math.min(options.getMultiPv(), rootMoves.size()); line++) {
+                    Move move = rootMoves.get(line);
+                    StdoutWriter.writeToStdout("info depth " + depth + " seldepth " + context.getSelectiveDepth() +
+                            " multipv " + (line + 1) + " score " + formatScore(ratings.get(move)) + " " +
+                            context.formatStatistics() + " pv " + formatLine(board, move, depth));
+                }
+            } else {
+                StdoutWriter.writeToStdout("info depth " + depth + " seldepth " + context.getSelectiveDepth() +
+                        " score " + formatScore(rating) + " " + context.formatStatistics() +
+                        " pv " + formatLine(board, rootMoves.get(0), depth));
+            }
+        }
+        return rootMoves;
+    }
+
+    /**
+     * Searches the root with an aspiration window around the rating of the previous iteration.
+     * If the best rating is outside the window, the window is widened and the root is searched again.
+     * @return the rating of every root move. Only the rating of the best move is exact.
+     */
+    private Map<Move, Integer> searchAspirationWindow(Board board, List<Move> rootMoves, int depth, int previousRating, Options options) {
+        int window = ASPIRATION_WINDOW;
+        boolean aspiration = depth > 1 && Math.abs(previousRating) < MATE_BOUND;
+        int alpha = aspiration ? previousRating - window : -INFINITY;
+        int beta = aspiration ? previousRating + window : INFINITY;
 
-        availableMoves.forEach(move -> {
-            RecursiveMinMaxTask task = new RecursiveMinMaxTask(board, move, 1, board.getNextColor(), options.getRecursionDepth());
-            ForkJoinTask<Integer> runningTask = forkJoinPool.submit(task);
-            taskHashMap.put(move, task);
-        });
+        while (true) {
+            Map<Move, Integer> evaluatedMoves = searchRoot(board, rootMoves, depth, alpha, beta, options);
+            if (context.isAborted()) {
+                return evaluatedMoves;
+            }
+            int bestRating = evaluatedMoves.values().stream().mapToInt(Integer::intValue).max().orElse(-INFINITY);
+            if (bestRating <= alpha && alpha > -INFINITY) {
+                StdoutWriter.writeToStdout("info depth " + depth + " score " + formatScore(alpha) + " upperbound");
+                window *= 2;
+                alpha = Math.max(bestRating - window, -INFINITY);
+            } else if (bestRating >= beta && beta < INFINITY) {
+                StdoutWriter.writeToStdout("info depth " + depth + " score " + formatScore(beta) + " lowerbound");
+                window *= 2;
+                beta = Math.min(bestRating + window, INFINITY);
+            } else {
+                return evaluatedMoves;
+            }
+        }
+    }
 
-        taskHashMap.forEach((key, value) -> evaluatedMoves.put(key, value.join()));
-        return evaluatedMoves.keySet().stream().sorted(Comparator.comparing(evaluatedMoves::get)).toList();
+    /**
+     * Searches the root for the number of best moves requested by {@code Options.getMultiPv()}.
+     * The best moves of the previous iteration are searched with a full window. All others are only tested with a zero
+     * window whether they are better than the worst of them, and only those which are get searched with a full window.
+     * @return the rating of every root move. The ratings of the requested number of best moves are exact.
+     */
+    private Map<Move, Integer> searchMultiPv(Board board, List<Move> rootMoves, int depth, Options options) {
+        int lines = Math.min(options.getMultiPv(), rootMoves.size());
+        Map<Move, Integer> evaluatedMoves = searchRoot(board, rootMoves.subList(0, lines), depth, -INFINITY, INFINITY, options);
+        if (context.isAborted() || lines == rootMoves.size()) {
+            return evaluatedMoves;
+        }
 
+        int worstRating = evaluatedMoves.values().stream().mapToInt(Integer::intValue).min().orElse(-INFINITY);
+        Map<Move, Integer> testedMoves = searchRoot(board, rootMoves.subList(lines, rootMoves.size()), depth,
+                worstRating, worstRating + 1, options);
+        evaluatedMoves.putAll(testedMoves);
+        if (context.isAborted()) {
+            return evaluatedMoves;
+        }
+        List<Move> betterMoves = testedMoves.keySet().stream().filter(move -> testedMoves.get(move) > worstRating).toList();
+        if (!betterMoves.isEmpty()) {
+            evaluatedMoves.putAll(searchRoot(board, betterMoves, depth, -INFINITY, INFINITY, options));
+        }
+        return evaluatedMoves;
+    }
+
+    /**
+     * Forgets the transposition table and the move ordering tables of the previous game.
+     */
+    @Override
+    public void newGame() {
+        context.newGame();
+    }
+
+    /**
+     * Follows the best moves of the transposition table from the given board.
+     * @param board the board to start from, which is not changed.
+     * @param maxLength the maximal number of moves.
+     * @return the expected moves of both sides, which is empty if the board is not in the table.
+     */
+    @Override
+    public synchronized List<Move> getPrincipalVariation(Board board, int maxLength) {
+        List<Move> principalVariation = new ArrayList<>();
+        Board currentBoard = board.deepClone();
+        while (principalVariation.size() < maxLength) {
+            TranspositionTable.Entry entry = context.getTranspositionTable().probe(currentBoard.getHash());
+            // the stored move may belong to another position with the same index, so it is checked to be legal
+            if (entry == null || entry.getMove() == null ||
+                    !legalMoveProvider.getLegalMoves(currentBoard, currentBoard.getNextColor()).contains(entry.getMove())) {
+                break;
+            }
+            principalVariation.add(entry.getMove());
+            currentBoard.playMove(entry.getMove());
+        }
+        return principalVariation;
+    }
+
+    /**
+     * Rates all moves of the root in parallel with the given search window.
+     * @return the rating of every root move. Ratings outside of the window are only bounds of the real rating.
+     */
+    private Map<Move, Integer> searchRoot(Board board, List<Move> rootMoves, int depth, int alpha, int beta, Options options) {
+        List<RecursiveMinMaxTask> tasks = rootMoves.stream()
+                .map(move -> new RecursiveMinMaxTask(board, move, 1, depth, options.getSplitDepth(), alpha, beta, context))
+                .toList();
+        forkJoinPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        HashMap<Move, Integer> evaluatedMoves = new HashMap<>();
+        tasks.forEach(task -> evaluatedMoves.put(task.move, task.join()));
+        if (!context.isAborted()) {
+            tasks.forEach(task -> principalVariations.put(task.move, task.getPrincipalVariation()));
+        }
+        return evaluatedMoves;
+    }
+
+    /**
+     * Formats the principal variation of a root move for the pv of an UCI info line.
+     * If the search collected a line shorter than the depth, because it was cut off by the transposition table,
+     * the line is continued with the best moves stored in the table.
+     */
+    private String formatLine(Board board, Move move, int depth) {
+        List<Move> line = new ArrayList<>(principalVariations.getOrDefault(move, List.of(move)));
+        Board newBoard = board.deepClone();
+        line.forEach(newBoard::playMove);
+        line.addAll(getPrincipalVariation(newBoard, depth - line.size()));
+        return String.join(" ", line.stream().map(Converter::convertMoveToString).toList());
+    }
+
+    /**
+     * Formats a rating for the score of an UCI info line.
+     * @return "cp" and the rating in centipawns or "mate" and the number of moves until mate, negative if the engine gets mated.
+     */
+    private String formatScore(int rating) {
+        if (rating >= MATE_BOUND) {
+            return "mate " + (MATE - rating + 1) / 2;
+        } else if (rating <= -MATE_BOUND) {
+            return "mate " + -(MATE + rating) / 2;
+        }
+        return "cp " + rating;
     }
 }
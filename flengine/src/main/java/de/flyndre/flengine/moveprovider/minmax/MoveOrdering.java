@@ -0,0 +1,183 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Piece;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.datamodel.enums.Type;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orders the moves of a node for the alpha-beta search. The best move of the transposition table comes first.
+ * Captures and promotions are ordered by the most valuable victim and the least valuable attacker.
+ * Quiet moves are ordered by tables which remember moves that caused beta cutoffs before: two killer moves per level,
+ * the counter move to the previous move and the history table.
+ * The tables are not synchronized, so every search thread needs its own instance.
+ */
+public class MoveOrdering {
+
+    /**
+     * Number of levels for which killer moves are stored.
+     */
+    private static final int MAX_LEVEL = 64;
+    /**
+     * Limit of the history ratings. Updates are scaled down when approaching this limit, so that the ratings saturate.
+     */
+    private static final int HISTORY_MAX = 16384;
+
+    private static final int HASH_MOVE_ORDER = 4 * HISTORY_MAX;
+    private static final int CAPTURE_ORDER = 3 * HISTORY_MAX;
+    private static final int FIRST_KILLER_ORDER = 2 * HISTORY_MAX + 2;
+    private static final int SECOND_KILLER_ORDER = 2 * HISTORY_MAX + 1;
+    private static final int COUNTER_MOVE_ORDER = 2 * HISTORY_MAX;
+
+    /**
+     * Two quiet moves per level which caused a beta cutoff in a sibling node.
+     */
+    private final Move[][] killers = new Move[MAX_LEVEL][2];
+    /**
+     * Rating of quiet moves indexed by the moving piece and the target field.
+     * It grows with every beta cutoff by the move and shrinks if the move was tried without cutoff.
+     */
+    private final int[][] history = new int[12][64];
+    /**
+     * Quiet move which refuted the previous move, indexed by the piece and the target field of the previous move.
+     */
+    private final Move[][] counterMoves = new Move[12][64];
+
+    /**
+     * Orders the given moves, best first.
+     * @param board the board the moves are played on.
+     * @param moves the moves to order.
+     * @param level the number of moves played since the root.
+     * @param previousMove the move which led to the board or null if there is none.
+     * @param hashMove the best move of the transposition table, which is tried first, or null if there is none.
+     * @return a new list with the ordered moves.
+     */
+    public List<Move> order(Board board, List<Move> moves, int level, Move previousMove, Move hashMove) {
+        Move counterMove = getCounterMove(board, previousMove);
+        List<Move> orderedMoves = new ArrayList<>(moves);
+        orderedMoves.sort(Comparator.comparingInt((Move move) ->
+                move.equals(hashMove) ? -HASH_MOVE_ORDER : -rate(board, move, level, counterMove)));
+        return orderedMoves;
+    }
+
+    /**
+     * Orders captures and promotions, the most valuable victim first and then the least valuable attacker.
+     * @param board the board the captures are played on.
+     * @param captures the captures to order.
+     * @return a new list with the ordered captures.
+     */
+    public static List<Move> orderCaptures(Board board, List<Move> captures) {
+        List<Move> orderedCaptures = new ArrayList<>(captures);
+        orderedCaptures.sort(Comparator.comparingInt((Move capture) -> -rateCapture(board, capture)));
+        return orderedCaptures;
+    }
+
+    /**
+     * Updates the tables after a quiet move caused a beta cutoff.
+     * @param board the board the move was played on.
+     * @param move the move which caused the cutoff.
+     * @param level the number of moves played since the root.
+     * @param depth the remaining depth of the node, deeper cutoffs weigh more.
+     * @param previousMove the move which led to the board or null if there is none.
+     * @param triedQuietMoves the quiet moves which were searched before without a cutoff.
+     */
+    public void updateCutoff(Board board, Move move, int level, int depth, Move previousMove, List<Move> triedQuietMoves) {
+        if (level < MAX_LEVEL && !move.equals(killers[level][0])) {
+            killers[level][1] = killers[level][0];
+            killers[level][0] = move;
+        }
+        if (previousMove != null && board.getPiece(previousMove.getTo()) != null) {
+            counterMoves[pieceIndex(board.getPiece(previousMove.getTo()))][previousMove.getTo().hashCode()] = move;
+        }
+        int bonus = Math.min(depth * depth, HISTORY_MAX);
+        updateHistory(board, move, bonus);
+        for (Move triedMove : triedQuietMoves) {
+            updateHistory(board, triedMove, -bonus);
+        }
+    }
+
+    /**
+     * Ages the tables between two searches. Killer moves only fit the position they were found in, so they are cleared.
+     * History ratings are halved, so that they adapt to the new position but still help the ordering.
+     */
+    public void age() {
+        for (Move[] levelKillers : killers) {
+            levelKillers[0] = null;
+            levelKillers[1] = null;
+        }
+        for (int[] pieceHistory : history) {
+            for (int i = 0; i < pieceHistory.length; i++) {
+                pieceHistory[i] /= 2;
+            }
+        }
+    }
+
+    /**
+     * Returns the material a capture or promotion wins at most.
+     * @param board the board the move is played on.
+     * @param move the move.
+     * @return the value of the captured piece plus the value a promotion adds, 0 for quiet moves.
+     */
+    public static int captureGain(Board board, Move move) {
+        Piece victim = board.getPiece(move.getTo());
+        // a pawn which moves diagonally onto an empty field captures en passant
+        int gain = victim != null ? victim.getTypeOfFigure().getCentipawnValue() :
+                board.getPiece(move.getFrom()).getTypeOfFigure() == Type.PAWN &&
+                        move.getFrom().getRow() != move.getTo().getRow() ? Type.PAWN.getCentipawnValue() : 0;
+        if (move.getPromoteTo() != null) {
+            gain += move.getPromoteTo().getCentipawnValue() - Type.PAWN.getCentipawnValue();
+        }
+        return gain;
+    }
+
+    /**
+     * @param board the board the move is played on.
+     * @param move the move.
+     * @return true if the move neither captures nor promotes.
+     */
+    public static boolean isQuiet(Board board, Move move) {
+        return captureGain(board, move) == 0;
+    }
+
+    private int rate(Board board, Move move, int level, Move counterMove) {
+        if (!isQuiet(board, move)) {
+            return CAPTURE_ORDER + rateCapture(board, move);
+        }
+        if (level < MAX_LEVEL && move.equals(killers[level][0])) {
+            return FIRST_KILLER_ORDER;
+        }
+        if (level < MAX_LEVEL && move.equals(killers[level][1])) {
+            return SECOND_KILLER_ORDER;
+        }
+        if (move.equals(counterMove)) {
+            return COUNTER_MOVE_ORDER;
+        }
+        return history[pieceIndex(board.getPiece(move.getFrom()))][move.getTo().hashCode()];
+    }
+
+    private static int rateCapture(Board board, Move capture) {
+        return captureGain(board, capture) * 16 - board.getPiece(capture.getFrom()).getTypeOfFigure().getValue();
+    }
+
+    private Move getCounterMove(Board board, Move previousMove) {
+        if (previousMove == null || board.getPiece(previousMove.getTo()) == null) {
+            return null;
+        }
+        return counterMoves[pieceIndex(board.getPiece(previousMove.getTo()))][previousMove.getTo().hashCode()];
+    }
+
+    private void updateHistory(Board board, Move move, int bonus) {
+        int[] pieceHistory = history[pieceIndex(board.getPiece(move.getFrom()))];
+        int to = move.getTo().hashCode();
+        pieceHistory[to] += bonus - pieceHistory[to] * Math.abs(bonus) / HISTORY_MAX;
+    }
+
+    private static int pieceIndex(Piece piece) {
+        return piece.getTypeOfFigure().ordinal() * 2 + (piece.getColor() == Color.WHITE ? 0 : 1);
+    }
+}
@@ -0,0 +1,69 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Accumulator;
+import de.flyndre.flengine.datamodel.Field;
+import de.flyndre.flengine.datamodel.Piece;
+import de.flyndre.flengine.datamodel.enums.Color;
+
+/**
+ * The first layer of a {@code NnueNetwork} for both views of a board. The board updates it with every piece
+ * that is set or taken, which only adds or subtracts the weights of one feature per view.
+ */
+public class NnueAccumulator implements Accumulator {
+
+    private final NnueNetwork network;
+    /**
+     * The accumulators of both views, indexed by the ordinal of the color.
+     */
+    private final short[][] values;
+
+    /**
+     * Creates an accumulator of a board without pieces.
+     * @param network the network whose first layer is accumulated.
+     */
+    public NnueAccumulator(NnueNetwork network) {
+        this.network = network;
+        this.values = new short[2][network.getHiddenSize()];
+        network.initialize(values[Color.BLACK.ordinal()]);
+        network.initialize(values[Color.WHITE.ordinal()]);
+    }
+
+    private NnueAccumulator(NnueAccumulator accumulator) {
+        this.network = accumulator.network;
+        this.values = new short[][]{accumulator.values[0].clone(), accumulator.values[1].clone()};
+    }
+
+    @Override
+    public void add(Piece piece, Field field) {
+        network.addFeature(values[Color.BLACK.ordinal()], NnueNetwork.feature(piece, field, Color.BLACK));
+        network.addFeature(values[Color.WHITE.ordinal()], NnueNetwork.feature(piece, field, Color.WHITE));
+    }
+
+    @Override
+    public void remove(Piece piece, Field field) {
+        network.removeFeature(values[Color.BLACK.ordinal()], NnueNetwork.feature(piece, field, Color.BLACK));
+        network.removeFeature(values[Color.WHITE.ordinal()], NnueNetwork.feature(piece, field, Color.WHITE));
+    }
+
+    @Override
+    public NnueAccumulator copy() {
+        return new NnueAccumulator(this);
+    }
+
+    /**
+     * @return the network whose first layer is accumulated.
+     */
+    public NnueNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Calculates the output of the network.
+     * @param sideToMove the color on turn.
+     * @return the rating in centipawns from the view of the side to move.
+     */
+    public int evaluate(Color sideToMove) {
+        Color opponent = sideToMove == Color.WHITE ? Color.BLACK : Color.WHITE;
+        return network.propagate(values[sideToMove.ordinal()], values[opponent.ordinal()]);
+    }
+}
@@ -0,0 +1,64 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Field;
+import de.flyndre.flengine.datamodel.Piece;
+import de.flyndre.flengine.datamodel.enums.Line;
+import de.flyndre.flengine.datamodel.enums.Row;
+
+/**
+ * An implementation of {@code Evaluator} that rates a board with an efficiently updatable neural network.
+ * A search attaches an {@code NnueAccumulator} to its root board. The board keeps it up to date and passes it on
+ * to its copies, so the boards of the search tree below only update it with the pieces that moved.
+ * Endgames which the {@code MaterialTable} knows get its specialised evaluation instead.
+ * @see NnueNetwork
+ */
+public class NnueEvaluator implements Evaluator {
+
+    private final NnueNetwork network;
+
+    /**
+     * Creates an evaluator with the bundled network.
+     */
+    public NnueEvaluator() {
+        this(NnueNetwork.getDefault());
+    }
+
+    /**
+     * Creates an evaluator with the given network.
+     * @param network the network.
+     */
+    public NnueEvaluator(NnueNetwork network) {
+        this.network = network;
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        Integer specialised = MaterialTable.evaluate(board);
+        if (specialised != null) {
+            return specialised;
+        }
+        if (board.getAccumulator() instanceof NnueAccumulator attached && attached.getNetwork() == network) {
+            return attached.evaluate(board.getNextColor());
+        }
+        // a board outside of a search has no accumulator, so it is calculated from scratch without attaching it
+        NnueAccumulator accumulator = new NnueAccumulator(network);
+        for (Line line : Line.values()) {
+            for (Row row : Row.values()) {
+                Field field = new Field(line, row);
+                Piece piece = board.getPiece(field);
+                if (piece != null) {
+                    accumulator.add(piece, field);
+                }
+            }
+        }
+        return accumulator.evaluate(board.getNextColor());
+    }
+
+    @Override
+    public void attachAccumulator(Board board) {
+        if (!(board.getAccumulator() instanceof NnueAccumulator attached && attached.getNetwork() == network)) {
+            board.setAccumulator(new NnueAccumulator(network));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Field;
+import de.flyndre.flengine.datamodel.Piece;
+import de.flyndre.flengine.datamodel.PieceSquareTable;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.datamodel.enums.Line;
+import de.flyndre.flengine.datamodel.enums.Row;
+import de.flyndre.flengine.datamodel.enums.Type;
+
+import java.io.*;
+import java.util.logging.Logger;
+
+/**
+ * The weights of an efficiently updatable neural network (NNUE) for the {@code NnueEvaluator}.
+ * The input features are the pieces on their fields, seen from the view of each color: 6 types, own or opponent,
+ * on 64 fields, where black sees the board mirrored. Each view has its own accumulator of {@link #getHiddenSize()}
+ * int16 values, which is the sum of the first layer weights of all its active features plus the bias.
+ * The output is the dot product of the clipped accumulators, the one of the side to move first, with int8 weights.
+ * <p>
+ * The file format is big endian: the magic number "FLNN", the version, the number of features and the hidden size
+ * as ints, then the first layer weights as shorts, feature by feature, the first layer biases as shorts,
+ * the output weights as bytes and the output bias as int.
+ * <p>
+ * If the jvm is started with {@code --add-modules jdk.incubator.vector}, the accumulators are updated and propagated
+ * with the vector API, otherwise with plain loops.
+ * <p>
+ * The bundled network is distilled from the {@code PieceSquareTable}: every hidden unit sums the values of one type
+ * of own pieces, averaged over middlegame and endgame. It is a starting point which a trained network replaces
+ * by exchanging the file.
+ */
+public class NnueNetwork {
+
+    /**
+     * Resource of the bundled network.
+     */
+    public static final String DEFAULT_NETWORK = "/flengine.nnue";
+    /**
+     * Number of input features of one view.
+     */
+    public static final int FEATURES = 768;
+    /**
+     * Upper bound of the clipped accumulator values.
+     */
+    public static final int ACTIVATION_MAX = 4095;
+    /**
+     * Divisor from the output of the network to centipawns.
+     */
+    public static final int OUTPUT_SCALE = 16;
+
+    private static final int MAGIC = 0x464C4E4E;
+    private static final int VERSION = 1;
+    private static final int DISTILLED_HIDDEN_SIZE = 16;
+
+    private static final Logger logger = Logger.getLogger(NnueNetwork.class.getName());
+    /**
+     * Whether the vector API is available. It is an incubator module, which the jvm doesn't provide by default.
+     */
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    private static NnueNetwork defaultNetwork;
+
+    private final int hiddenSize;
+    /**
+     * First layer weights, indexed by the feature times the hidden size plus the hidden unit.
+     */
+    private final short[] featureWeights;
+    private final short[] biases;
+    /**
+     * Output weights, first for the accumulator of the side to move, then for the one of the opponent.
+     */
+    private final byte[] outputWeights;
+    /**
+     * The output weights widened to ints for the vector API, which is null if it isn't available.
+     */
+    private final int[] wideOutputWeights;
+    private final int outputBias;
+
+    private NnueNetwork(int hiddenSize, short[] featureWeights, short[] biases, byte[] outputWeights, int outputBias) {
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.biases = biases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+        if (VECTORIZED) {
+            wideOutputWeights = new int[outputWeights.length];
+            for (int i = 0; i < outputWeights.length; i++) {
+                wideOutputWeights[i] = outputWeights[i];
+            }
+        } else {
+            wideOutputWeights = null;
+        }
+    }
+
+    /**
+     * Returns the bundled network, which is loaded once. If it can't be read, the network is distilled
+     * from the piece square tables instead.
+     * @return the bundled network.
+     */
+    public static synchronized NnueNetwork getDefault() {
+        if (defaultNetwork == null) {
+            try (InputStream input = NnueNetwork.class.getResourceAsStream(DEFAULT_NETWORK)) {
+                if (input == null) {
+                    throw new IOException("The resource " + DEFAULT_NETWORK + " doesn't exist.");
+                }
+                defaultNetwork = load(input);
+            } catch (IOException e) {
+                logger.warning("Could not load the bundled network, using the piece square tables instead: " + e.getMessage());
+                defaultNetwork = fromPieceSquareTable();
+            }
+        }
+        return defaultNetwork;
+    }
+
+    /**
+     * Reads a network in the format described above.
+     * @param input the stream to read, which is not closed.
+     * @return the network.
+     * @throws IOException if the stream can't be read or doesn't contain a network.
+     */
+    public static NnueNetwork load(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("The stream doesn't contain a network of version " + VERSION + ".");
+        }
+        if (data.readInt() != FEATURES) {
+            throw new IOException("The network doesn't have " + FEATURES + " features.");
+        }
+        int hiddenSize = data.readInt();
+        short[] featureWeights = new short[FEATURES * hiddenSize];
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = data.readShort();
+        }
+        short[] biases = new short[hiddenSize];
+        for (int i = 0; i < biases.length; i++) {
+            biases[i] = data.readShort();
+        }
+        byte[] outputWeights = new byte[2 * hiddenSize];
+        data.readFully(outputWeights);
+        return new NnueNetwork(hiddenSize, featureWeights, biases, outputWeights, data.readInt());
+    }
+
+    /**
+     * Writes the network in the format described above.
+     * @param output the stream to write, which is not closed.
+     * @throws IOException if the stream can't be written.
+     */
+    public void save(OutputStream output) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(FEATURES);
+        data.writeInt(hiddenSize);
+        for (short weight : featureWeights) {
+            data.writeShort(weight);
+        }
+        for (short bias : biases) {
+            data.writeShort(bias);
+        }
+        data.write(outputWeights);
+        data.writeInt(outputBias);
+        data.flush();
+    }
+
+    /**
+     * Distills a network from the piece square tables. The hidden unit of a type sums the values of the own pieces
+     * of that type in centipawns, or in two centipawns for queens, so that the accumulators stay below
+     * {@link #ACTIVATION_MAX}. The king unit starts in the middle of the range, because its values are negative.
+     * The biases are the same in both views, so they cancel out in the output.
+     * @return the network.
+     */
+    public static NnueNetwork fromPieceSquareTable() {
+        int hiddenSize = DISTILLED_HIDDEN_SIZE;
+        short[] featureWeights = new short[FEATURES * hiddenSize];
+        short[] biases = new short[hiddenSize];
+        byte[] outputWeights = new byte[2 * hiddenSize];
+        for (Type type : Type.values()) {
+            int unit = type.ordinal();
+            int scale = type == Type.QUEEN ? 2 : 1;
+            for (int field = 0; field < 64; field++) {
+                Piece piece = new Piece(type, Color.WHITE);
+                Field square = new Field(Line.values()[field / 8], Row.values()[field % 8]);
+                int value = (PieceSquareTable.middlegame(piece, square) + PieceSquareTable.endgame(piece, square)) / 2;
+                featureWeights[feature(type, true, field) * hiddenSize + unit] = (short) Math.round((float) value / scale);
+            }
+            biases[unit] = (short) (type == Type.KING ? ACTIVATION_MAX / 2 : 0);
+            outputWeights[unit] = (byte) (OUTPUT_SCALE * scale);
+            outputWeights[hiddenSize + unit] = (byte) (-OUTPUT_SCALE * scale);
+        }
+        return new NnueNetwork(hiddenSize, featureWeights, biases, outputWeights, 0);
+    }
+
+    /**
+     * Returns the input feature of a piece from the view of a color.
+     * @param piece the piece.
+     * @param field the field of the piece.
+     * @param view the color from whose view the piece is seen.
+     * @return the index of the feature.
+     */
+    public static int feature(Piece piece, Field field, Color view) {
+        // black sees the board mirrored, so that both views have their own pieces on the first lines
+        int square = view == Color.WHITE ? field.hashCode() : field.hashCode() ^ 56;
+        return feature(piece.getTypeOfFigure(), piece.getColor() == view, square);
+    }
+
+    private static int feature(Type type, boolean own, int square) {
+        return ((type.ordinal() * 2) + (own ? 0 : 1)) * 64 + square;
+    }
+
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    /**
+     * Adds the first layer weights of a feature to an accumulator.
+     */
+    void addFeature(short[] accumulator, int feature) {
+        int offset = feature * hiddenSize;
+        if (VECTORIZED) {
+            NnueVector.add(accumulator, featureWeights, offset, hiddenSize);
+            return;
+        }
+        // a plain loop over the arrays, which the just in time compiler may turn into vector instructions
+        for (int i = 0; i < hiddenSize; i++) {
+            accumulator[i] += featureWeights[offset + i];
+        }
+    }
+
+    /**
+     * Subtracts the first layer weights of a feature from an accumulator.
+     */
+    void removeFeature(short[] accumulator, int feature) {
+        int offset = feature * hiddenSize;
+        if (VECTORIZED) {
+            NnueVector.subtract(accumulator, featureWeights, offset, hiddenSize);
+            return;
+        }
+        for (int i = 0; i < hiddenSize; i++) {
+            accumulator[i] -= featureWeights[offset + i];
+        }
+    }
+
+    /**
+     * Fills an accumulator with the biases, which is its value without any feature.
+     */
+    void initialize(short[] accumulator) {
+        System.arraycopy(biases, 0, accumulator, 0, hiddenSize);
+    }
+
+    /**
+     * Calculates the output of the network.
+     * @param own the accumulator of the side to move.
+     * @param opponent the accumulator of the opponent.
+     * @return the rating in centipawns from the view of the side to move.
+     */
+    int propagate(short[] own, short[] opponent) {
+        if (VECTORIZED) {
+            return (outputBias + NnueVector.dot(own, wideOutputWeights, 0, hiddenSize, ACTIVATION_MAX) +
+                    NnueVector.dot(opponent, wideOutputWeights, hiddenSize, hiddenSize, ACTIVATION_MAX)) / OUTPUT_SCALE;
+        }
+        int output = outputBias;
+        for (int i = 0; i < hiddenSize; i++) {
+            output += Math.min(Math.max(own[i], 0), ACTIVATION_MAX) * outputWeights[i];
+        }
+        for (int i = 0; i < hiddenSize; i++) {
+            output += Math.min(Math.max(opponent[i], 0), ACTIVATION_MAX) * outputWeights[hiddenSize + i];
+        }
+        return output / OUTPUT_SCALE;
+    }
+}
@@ -0,0 +1,74 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The loops of the {@code NnueNetwork} with the vector API. The class is only loaded if the jvm provides
+ * the module {@code jdk.incubator.vector}, otherwise the network uses its plain loops.
+ * The results are the same as the ones of the plain loops, including the overflow of the int16 accumulators.
+ */
+final class NnueVector {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    /**
+     * The ints of the same width as the shorts, so that a vector of shorts widens into two vectors of ints.
+     */
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    private NnueVector() {
+    }
+
+    /**
+     * Adds the weights from the offset to the accumulator.
+     */
+    static void add(short[] accumulator, short[] weights, int offset, int size) {
+        int i = 0;
+        for (; i < SHORTS.loopBound(size); i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .add(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+        for (; i < size; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    /**
+     * Subtracts the weights from the offset from the accumulator.
+     */
+    static void subtract(short[] accumulator, short[] weights, int offset, int size) {
+        int i = 0;
+        for (; i < SHORTS.loopBound(size); i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+        for (; i < size; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    /**
+     * Calculates the dot product of the clipped accumulator with the weights from the offset.
+     * @param weights the output weights widened to ints.
+     */
+    static int dot(short[] accumulator, int[] weights, int offset, int size, int activationMax) {
+        IntVector sum = IntVector.zero(INTS);
+        int i = 0;
+        for (; i < SHORTS.loopBound(size); i += SHORTS.length()) {
+            ShortVector clipped = ShortVector.fromArray(SHORTS, accumulator, i).max((short) 0).min((short) activationMax);
+            for (int part = 0; part < 2; part++) {
+                IntVector values = (IntVector) clipped.convertShape(VectorOperators.S2I, INTS, part);
+                sum = sum.add(values.mul(IntVector.fromArray(INTS, weights, offset + i + part * INTS.length())));
+            }
+        }
+        int output = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < size; i++) {
+            output += Math.min(Math.max(accumulator[i], 0), activationMax) * weights[offset + i];
+        }
+        return output;
+    }
+}
@@ -0,0 +1,40 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Board;
+
+/**
+ * An implementation of {@code Evaluator} that weakens another evaluator by adding noise to its ratings,
+ * as requested by the {@code Difficulty} of a search.
+ * The noise is derived from the Zobrist hash of the position and a seed, so a position keeps its rating during
+ * a game and the transposition table, which is kept between its searches, stays consistent. Every game gets
+ * a new seed, so the engine doesn't repeat the same mistakes in every game.
+ */
+public class NoisyEvaluator implements Evaluator {
+
+    private final Evaluator evaluator;
+    private final int noise;
+    private final long seed;
+
+    /**
+     * @param evaluator the evaluator whose ratings are changed.
+     * @param noise the maximal noise in centipawns.
+     * @param seed the seed which, together with the hash, decides the noise of a position.
+     */
+    public NoisyEvaluator(Evaluator evaluator, int noise, long seed) {
+        this.evaluator = evaluator;
+        this.noise = noise;
+        this.seed = seed;
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        // the multiplication spreads similar hashes over the upper bits, which decide the noise
+        long mixed = (board.getHash() ^ seed) * 0x9E3779B97F4A7C15L;
+        return evaluator.evaluate(board) + (int) Math.floorMod(mixed >>> 32, 2L * noise + 1) - noise;
+    }
+
+    @Override
+    public void attachAccumulator(Board board) {
+        evaluator.attachAccumulator(board);
+    }
+}
@@ -0,0 +1,242 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Field;
+import de.flyndre.flengine.datamodel.Piece;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.datamodel.enums.Line;
+import de.flyndre.flengine.datamodel.enums.Row;
+import de.flyndre.flengine.datamodel.enums.Type;
+
+/**
+ * A hash table which caches the evaluation of the pawn structure by the pawn hash of the position,
+ * see {@code Board.getPawnHash()}. The pawns change only with a small part of the moves, so almost every
+ * evaluation finds its pawn structure already rated.
+ * An entry holds the middlegame and endgame rating of doubled, isolated, backward and passed pawns from the view
+ * of white, together with the pawns and the passed pawns of both colors as bit masks, indexed like {@code Field.hashCode()}.
+ * The terms which depend on other pieces, like the pawn shield of the king, are rated by the evaluator from the masks.
+ * The table is not synchronized, so every search thread needs its own instance.
+ */
+public class PawnTable {
+
+    /**
+     * Number of entries of a table. It is a power of two, so that the index is a cheap bit mask.
+     */
+    private static final int SIZE = 1 << 14;
+
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    private static final int BACKWARD_MIDDLEGAME = -8;
+    private static final int BACKWARD_ENDGAME = -10;
+    /**
+     * Bonuses of passed pawns indexed by their line, counted from the line where the pawns of their color start.
+     */
+    static final int[] PASSED_MIDDLEGAME = {0, 0, 5, 10, 20, 35, 60, 0};
+    static final int[] PASSED_ENDGAME = {0, 0, 10, 20, 40, 70, 120, 0};
+
+    /**
+     * All fields of a row.
+     */
+    private static final long[] ROW_MASKS = new long[8];
+    /**
+     * All fields of the neighbouring rows of a row.
+     */
+    private static final long[] ADJACENT_ROW_MASKS = new long[8];
+    /**
+     * Fields in front of a pawn on its own and the neighbouring rows, indexed by the ordinal of the color and the field.
+     * A pawn is passed if no opponent pawn stands on them.
+     */
+    private static final long[][] PASSED_MASKS = new long[2][64];
+    /**
+     * Fields beside and behind a pawn on the neighbouring rows, from where own pawns can still protect it.
+     */
+    private static final long[][] SUPPORT_MASKS = new long[2][64];
+    /**
+     * Fields of the pawn shield of a king: its own and the neighbouring rows on the two lines in front of it,
+     * indexed by the ordinal of the color and the field of the king.
+     */
+    private static final long[][] SHIELD_MASKS = new long[2][64];
+
+    static {
+        for (int row = 0; row < 8; row++) {
+            for (int line = 0; line < 8; line++) {
+                ROW_MASKS[row] |= 1L << line * 8 + row;
+            }
+        }
+        for (int row = 0; row < 8; row++) {
+            ADJACENT_ROW_MASKS[row] = (row > 0 ? ROW_MASKS[row - 1] : 0) | (row < 7 ? ROW_MASKS[row + 1] : 0);
+        }
+        for (int field = 0; field < 64; field++) {
+            int line = field / 8;
+            int row = field % 8;
+            for (int otherLine = 0; otherLine < 8; otherLine++) {
+                long lineMask = 0xFFL << otherLine * 8;
+                long rows = ROW_MASKS[row] | ADJACENT_ROW_MASKS[row];
+                if (otherLine > line) {
+                    PASSED_MASKS[Color.WHITE.ordinal()][field] |= lineMask & rows;
+                    SUPPORT_MASKS[Color.BLACK.ordinal()][field] |= lineMask & ADJACENT_ROW_MASKS[row];
+                } else if (otherLine < line) {
+                    PASSED_MASKS[Color.BLACK.ordinal()][field] |= lineMask & rows;
+                    SUPPORT_MASKS[Color.WHITE.ordinal()][field] |= lineMask & ADJACENT_ROW_MASKS[row];
+                } else {
+                    SUPPORT_MASKS[Color.WHITE.ordinal()][field] |= lineMask & ADJACENT_ROW_MASKS[row];
+                    SUPPORT_MASKS[Color.BLACK.ordinal()][field] |= lineMask & ADJACENT_ROW_MASKS[row];
+                }
+                if (otherLine == line + 1 || otherLine == line + 2) {
+                    SHIELD_MASKS[Color.WHITE.ordinal()][field] |= lineMask & rows;
+                }
+                if (otherLine == line - 1 || otherLine == line - 2) {
+                    SHIELD_MASKS[Color.BLACK.ordinal()][field] |= lineMask & rows;
+                }
+            }
+        }
+    }
+
+    private final Entry[] entries = new Entry[SIZE];
+
+    /**
+     * Looks up the rating of the pawn structure of a board and rates it if it is not stored yet.
+     * @param board the board whose pawns are rated.
+     * @return the entry of the pawns of the board. It is reused for other pawns later,
+     * so it must not be kept after the next call.
+     */
+    public Entry probe(Board board) {
+        int index = (int) board.getPawnHash() & (SIZE - 1);
+        Entry entry = entries[index];
+        if (entry == null) {
+            entry = new Entry();
+            entries[index] = entry;
+        } else if (entry.key == board.getPawnHash()) {
+            return entry;
+        }
+        entry.key = board.getPawnHash();
+        entry.rate(board);
+        return entry;
+    }
+
+    /**
+     * The rated pawn structure of a position.
+     */
+    public static class Entry {
+        private long key;
+        private int middlegame;
+        private int endgame;
+        private final long[] pawns = new long[2];
+        private final long[] passedPawns = new long[2];
+
+        /**
+         * @return the middlegame rating of the pawn structure from the view of white.
+         */
+        public int getMiddlegame() {
+            return middlegame;
+        }
+
+        /**
+         * @return the endgame rating of the pawn structure from the view of white.
+         */
+        public int getEndgame() {
+            return endgame;
+        }
+
+        /**
+         * @param color the color of the pawns.
+         * @return the fields of the pawns of the color as bit mask.
+         */
+        public long getPawns(Color color) {
+            return pawns[color.ordinal()];
+        }
+
+        /**
+         * @param color the color of the pawns.
+         * @return the fields of the passed pawns of the color as bit mask.
+         */
+        public long getPassedPawns(Color color) {
+            return passedPawns[color.ordinal()];
+        }
+
+        /**
+         * @param color the color of the king.
+         * @param kingField the field of the king.
+         * @return the number of own pawns on the two lines in front of the king.
+         */
+        public int getShieldPawns(Color color, Field kingField) {
+            return Long.bitCount(pawns[color.ordinal()] & SHIELD_MASKS[color.ordinal()][kingField.hashCode()]);
+        }
+
+        private void rate(Board board) {
+            pawns[0] = 0;
+            pawns[1] = 0;
+            for (Line line : Line.values()) {
+                for (Row row : Row.values()) {
+                    Piece piece = board.getPiece(new Field(line, row));
+                    if (piece != null && piece.getTypeOfFigure() == Type.PAWN) {
+                        pawns[piece.getColor().ordinal()] |= 1L << line.ordinal() * 8 + row.ordinal();
+                    }
+                }
+            }
+            middlegame = 0;
+            endgame = 0;
+            rate(Color.WHITE, 1);
+            rate(Color.BLACK, -1);
+        }
+
+        /**
+         * Adds the rating of the pawns of one color.
+         * @param sign 1 for white and -1 for black, because the ratings are stored from the view of white.
+         */
+        private void rate(Color color, int sign) {
+            long own = pawns[color.ordinal()];
+            long opponent = pawns[1 - color.ordinal()];
+            int forward = color == Color.WHITE ? 8 : -8;
+            long passed = 0;
+
+            for (int row = 0; row < 8; row++) {
+                int doubled = Long.bitCount(own & ROW_MASKS[row]) - 1;
+                if (doubled > 0) {
+                    middlegame += sign * doubled * DOUBLED_MIDDLEGAME;
+                    endgame += sign * doubled * DOUBLED_ENDGAME;
+                }
+            }
+
+            for (long remaining = own; remaining != 0; remaining &= remaining - 1) {
+                int field = Long.numberOfTrailingZeros(remaining);
+                int row = field % 8;
+                int relativeLine = color == Color.WHITE ? field / 8 : 7 - field / 8;
+
+                // of doubled passed pawns only the front one counts
+                if ((opponent & PASSED_MASKS[color.ordinal()][field]) == 0 &&
+                        (own & PASSED_MASKS[color.ordinal()][field] & ROW_MASKS[row]) == 0) {
+                    passed |= 1L << field;
+                    middlegame += sign * PASSED_MIDDLEGAME[relativeLine];
+                    endgame += sign * PASSED_ENDGAME[relativeLine];
+                }
+                if ((own & ADJACENT_ROW_MASKS[row]) == 0) {
+                    middlegame += sign * ISOLATED_MIDDLEGAME;
+                    endgame += sign * ISOLATED_ENDGAME;
+                } else if ((own & SUPPORT_MASKS[color.ordinal()][field]) == 0 &&
+                        isStopAttacked(opponent, field + forward, forward)) {
+                    // no own pawn can protect it any more, and it can't advance without being taken
+                    middlegame += sign * BACKWARD_MIDDLEGAME;
+                    endgame += sign * BACKWARD_ENDGAME;
+                }
+            }
+            passedPawns[color.ordinal()] = passed;
+        }
+
+        /**
+         * @param forward 8 for white pawns and -8 for black pawns.
+         * @return whether an opponent pawn attacks the field in front of a pawn.
+         */
+        private static boolean isStopAttacked(long opponent, int stop, int forward) {
+            int row = stop % 8;
+            // the opponent pawns attack against the direction of the own pawns, so they stand one line further ahead
+            int attackerLine = stop / 8 + forward / 8;
+            if (attackerLine < 0 || attackerLine > 7) {
+                return false;
+            }
+            return (opponent & 0xFFL << attackerLine * 8 & ADJACENT_ROW_MASKS[row]) != 0;
+        }
+    }
+}
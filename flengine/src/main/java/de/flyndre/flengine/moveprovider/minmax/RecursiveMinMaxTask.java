@@ -8,7 +8,6 @@ import de.flyndre.flengine.rules.Rule;
 import java.util.*;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.RecursiveTask;
-import java.util.logging.Logger;
 
 import static de.flyndre.flengine.datamodel.enums.Color.BLACK;
 import static de.flyndre.flengine.datamodel.enums.Color.WHITE;
@@ -17,91 +16,482 @@ import static de.flyndre.flengine.datamodel.enums.Color.WHITE;
  * An implementation of {@code RecursiveTask} that calculates the best move for a given Position.
  * The Class uses a ForkJoinPool to handle multiple Threads.
  * The Maximum Depth of the Minimax Algorithm is 3. It can be changed by editing the Variable {@code MAXLEVEL}
+ * Only the levels above {@code SPLITLEVEL} are forked as own tasks. Below that level the subtree is searched
+ * recursively on the current thread, because the work per node is too small to pay for task creation and stealing.
+ * The search is written in negamax form, so every rating is seen from the side to move on the rated board.
+ * At {@code MAXLEVEL} the search is continued by a quiescence search that only looks at captures and promotions.
+ * Below {@code SPLITLEVEL} the search tries null moves to cut off positions which are good enough even if the side
+ * to move passes. Therefore, the sequential search counts the remaining depth separately from the level.
+ * The sequential search also reduces late quiet moves (late move reductions) and skips quiet moves near the leaves
+ * whose static evaluation is far away from the search window (futility and reverse futility pruning).
+ * The moves are ordered by the {@code MoveOrdering} of the current thread, which learns from the beta cutoffs.
+ * The results of all nodes are stored in the transposition table of the {@code SearchContext}. They cut off
+ * positions which were already searched deep enough, in this search or in a previous one of the game,
+ * and their best moves are tried first.
+ * Every task collects the principal variation of its subtree in a triangular table and counts its nodes
+ * for the statistics of the {@code SearchContext}.
+ * All tasks return at once if the {@code SearchContext} reports that the search was stopped or the time is up.
+ * Their ratings are meaningless then and are neither stored nor used by {@code MinMax}.
  * @author Ruben
  */
 public class RecursiveMinMaxTask extends RecursiveTask<Integer> {
 
+    /**
+     * Rating of a checkmate at the root. Mates found deeper in the tree are rated lower by one per level,
+     * so that shorter mates are preferred.
+     */
+    public static final int MATE = 100000;
+    /**
+     * Bound which is larger than every possible rating.
+     */
+    public static final int INFINITY = 1000000;
+    /**
+     * Safety margin of the delta pruning in the quiescence search.
+     * A capture is skipped if even the captured material plus this margin can't raise the rating up to alpha.
+     */
+    private static final int DELTA_MARGIN = 200;
+    /**
+     * Minimal remaining depth at which a null move is tried.
+     */
+    private static final int NULL_MOVE_MIN_DEPTH = 2;
+    /**
+     * Remaining depth from which the null move search is reduced by one more level.
+     */
+    private static final int NULL_MOVE_DEEP_REDUCTION_DEPTH = 6;
+    /**
+     * Minimal remaining depth at which a cutoff by a null move is verified by a reduced search without null moves.
+     * In shallow searches a wrong cutoff costs little, so the verification is only done at high depths.
+     */
+    private static final int NULL_MOVE_VERIFICATION_DEPTH = 5;
+    /**
+     * Ratings beyond this bound are mate ratings, which must not be used for pruning decisions.
+     */
+    public static final int MATE_BOUND = MATE - 1000;
+    /**
+     * Margins of the futility pruning indexed by the remaining depth.
+     * Quiet moves are skipped if the static evaluation plus the margin doesn't reach alpha.
+     */
+    private static final int[] FUTILITY_MARGINS = {0, 200, 500};
+    /**
+     * Margin per remaining depth of the reverse futility pruning.
+     * A node is cut off if the static evaluation minus the margin still reaches beta.
+     */
+    private static final int REVERSE_FUTILITY_MARGIN = 120;
+    /**
+     * Maximal remaining depth at which reverse futility pruning is done.
+     */
+    private static final int REVERSE_FUTILITY_DEPTH = 3;
+    /**
+     * Minimal remaining depth at which late moves are reduced.
+     */
+    private static final int LATE_MOVE_REDUCTION_DEPTH = 3;
+    /**
+     * Number of moves which are always searched to full depth.
+     */
+    private static final int LATE_MOVE_REDUCTION_MOVES = 3;
+    /**
+     * Reductions of late moves indexed by the remaining depth and the number of the move in the ordered move list.
+     * Both grow logarithmically, so deep searches and very late moves are reduced most.
+     */
+    private static final int[][] LATE_MOVE_REDUCTIONS = new int[64][64];
+    /**
+     * Number of nodes after which a task checks whether the time of the search is up.
+     * It is a power of two, so that the check is a cheap bit mask.
+     */
+    private static final int TIME_CHECK_INTERVAL = 256;
+    /**
+     * Number of levels for which the principal variation is collected.
+     */
+    private static final int MAX_PRINCIPAL_VARIATION = 128;
+
+    static {
+        for(int depth = 1; depth < 64; depth++){
+            for(int moveNumber = 1; moveNumber < 64; moveNumber++){
+                LATE_MOVE_REDUCTIONS[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+            }
+        }
+    }
+
     Board board;
     Move move;
     volatile int currentLevel;
-    private final Color playerColor;
     private final int MAXLEVEL;
+    private final int SPLITLEVEL;
+    /**
+     * The search window of the move. Ratings outside of it are only bounds of the real rating.
+     */
+    private final int alpha;
+    private final int beta;
     private final Rule legalMoveProvider = new Rule();
+    private final StaticExchange staticExchange = new StaticExchange(legalMoveProvider);
+    /**
+     * The state shared by all tasks of the search.
+     */
+    private final SearchContext context;
+    private final Evaluator evaluator;
+    private MoveOrdering moveOrdering;
+    /**
+     * Number of nodes this task has searched.
+     */
+    private int nodes = 0;
+    /**
+     * Highest level this task has reached, including the quiescence search.
+     */
+    private int selectiveDepth = 0;
+    /**
+     * Triangular table of the principal variations. The row of a level holds the best line found from that level on,
+     * starting at the index of the level. It is created when the level is first reached.
+     */
+    private final Move[][] principalVariations = new Move[MAX_PRINCIPAL_VARIATION][];
+    /**
+     * The index after the end of the principal variation of every level.
+     */
+    private final int[] principalVariationLengths = new int[MAX_PRINCIPAL_VARIATION];
 
-    public RecursiveMinMaxTask(Board board, Move move, int currentLevel, Color playerColor, int recursiveLevel){
+    public RecursiveMinMaxTask(Board board, Move move, int currentLevel, int recursiveLevel, int splitLevel, int alpha, int beta,
+                               SearchContext context){
         this.board = board;
         this.move = move;
         this.currentLevel = currentLevel;
-        this.playerColor = playerColor;
         this.MAXLEVEL = recursiveLevel;
+        this.SPLITLEVEL = splitLevel;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.context = context;
+        this.evaluator = context.getEvaluator();
     }
 
     /**
      * Implementation of the {@code compute}-Method which provides the Rating of a given {@code Move} on a {@code Board}.
-     * @return the Rating of the Move.
+     * @return the Rating of the Move from the view of the player who plays it.
      */
     @Override
     protected Integer compute() {
+        moveOrdering = context.getMoveOrdering();
         Board newBoard = board.deepClone();
+        newBoard.playMove(move);
+        int rating = -search(newBoard, currentLevel, MAXLEVEL - currentLevel, -beta, -alpha, true, move);
+        context.addNodes(nodes & (TIME_CHECK_INTERVAL - 1), selectiveDepth);
+        return rating;
+    }
+
+    /**
+     * Returns the principal variation of the task, which is only complete if the rating is inside the search window.
+     * It has to be called after the task has finished.
+     * @return the move of the task followed by the best answers.
+     */
+    public List<Move> getPrincipalVariation() {
+        List<Move> principalVariation = new ArrayList<>(List.of(move));
+        if(currentLevel < MAX_PRINCIPAL_VARIATION && principalVariations[currentLevel] != null){
+            principalVariation.addAll(Arrays.asList(principalVariations[currentLevel])
+                    .subList(currentLevel, principalVariationLengths[currentLevel]));
+        }
+        return principalVariation;
+    }
 
-        if(board.getPiece(move.getTo()) != null && board.getPiece(move.getTo()).getTypeOfFigure() == Type.KING){
-            return -100000;
+    /**
+     * Rates the given {@code Board} from the view of the side to move, searching all answers down to {@code MAXLEVEL}.
+     * The answers are forked as new tasks while {@code level} is below {@code SPLITLEVEL},
+     * otherwise they are rated by a direct recursive alpha-beta call on the current thread.
+     * Forked answers run in parallel, so they all get the window of this node and can't narrow it for each other.
+     * Endgames recognized by the {@code MaterialTable} are rated at once without searching any answer.
+     * @param board the board to rate.
+     * @param level the number of moves played since the root.
+     * @param depth the remaining depth until the quiescence search starts.
+     * @param alpha the rating the side to move is already guaranteed.
+     * @param beta the rating the opponent is already guaranteed.
+     * @param nullMoveAllowed whether a null move may be tried, which is not the case directly after another null move
+     *                        and during a verification search.
+     * @param previousMove the move which led to the board or null after a null move.
+     * @return the Rating of the Board.
+     */
+    private int search(Board board, int level, int depth, int alpha, int beta, boolean nullMoveAllowed, Move previousMove) {
+        if(depth <= 0){
+            return quiescence(board, level, alpha, beta);
+        }
+        clearPrincipalVariation(level);
+        if(isAborted(level)){
+            return 0;
+        }
+        Integer recognized = MaterialTable.recognize(board);
+        if(recognized != null){
+            return recognized;
         }
 
-        int rating = rateMove(newBoard, move);
-        newBoard.playMove(move);
+        // a result of a previous search with at least the same depth is reused if it is valid for the window
+        TranspositionTable transpositionTable = context.getTranspositionTable();
+        TranspositionTable.Entry entry = transpositionTable.probe(board.getHash());
+        Move hashMove = null;
+        if(entry != null){
+            hashMove = entry.getMove();
+            int rating = fromTranspositionTable(entry.getRating(), level);
+            if(entry.getDepth() >= depth && (entry.getBound() == TranspositionTable.EXACT ||
+                    entry.getBound() == TranspositionTable.LOWER_BOUND && rating >= beta ||
+                    entry.getBound() == TranspositionTable.UPPER_BOUND && rating <= alpha)){
+                return rating;
+            }
+        }
+
+        boolean inCheck = legalMoveProvider.isChecked(board, board.getNextColor());
+        boolean sequential = level >= SPLITLEVEL;
+        int staticEvaluation = inCheck ? -INFINITY : evaluator.evaluate(board);
+
+        // reverse futility pruning: the opponent won't be able to catch up in the few remaining levels
+        if(sequential && !inCheck && depth <= REVERSE_FUTILITY_DEPTH && Math.abs(beta) < MATE_BOUND &&
+                staticEvaluation - REVERSE_FUTILITY_MARGIN * depth >= beta){
+            return staticEvaluation - REVERSE_FUTILITY_MARGIN * depth;
+        }
+
+        // null move pruning: if passing still fails high, a real move will most probably do so too
+        if(nullMoveAllowed && sequential && !inCheck && depth >= NULL_MOVE_MIN_DEPTH &&
+                board.hasNonPawnMaterial(board.getNextColor()) && staticEvaluation >= beta){
+            int reduction = depth >= NULL_MOVE_DEEP_REDUCTION_DEPTH ? 3 : 2;
+            Field previousEnPassantField = board.playNullMove();
+            int rating = -search(board, level+1, depth-1-reduction, -beta, -beta+1, false, null);
+            board.undoNullMove(previousEnPassantField);
+            if(rating >= beta){
+                // don't trust mate ratings after an illegal null move
+                rating = Math.min(rating, MATE - MAXLEVEL - 1);
+                if(depth < NULL_MOVE_VERIFICATION_DEPTH ||
+                        search(board, level, depth-reduction, beta-1, beta, false, previousMove) >= beta){
+                    return rating;
+                }
+            }
+        }
 
-        if(currentLevel == MAXLEVEL){
+        List<Move> legalMoves = legalMoveProvider.getLegalMoves(board, board.getNextColor());
+        if(legalMoves.isEmpty()){
+            return inCheck ? -MATE + level : 0;
+        }
+
+        if(!sequential){
+            int nodeAlpha = alpha;
+            List<RecursiveMinMaxTask> tasks = legalMoves.stream()
+                    .map(legalMove -> new RecursiveMinMaxTask(board, legalMove, level+1, MAXLEVEL, SPLITLEVEL, nodeAlpha, beta, context))
+                    .toList();
+            invokeAll(tasks);
+            RecursiveMinMaxTask bestTask = tasks.stream().max(Comparator.comparingInt(ForkJoinTask::join)).orElseThrow();
+            int rating = bestTask.join();
+            if(rating > alpha && level < MAX_PRINCIPAL_VARIATION){
+                List<Move> line = bestTask.getPrincipalVariation();
+                int length = Math.min(line.size(), MAX_PRINCIPAL_VARIATION - level);
+                Move[] principalVariation = getPrincipalVariationRow(level);
+                for(int i = 0; i < length; i++){
+                    principalVariation[level + i] = line.get(i);
+                }
+                principalVariationLengths[level] = level + length;
+            }
+            store(board, bestTask.move, rating, level, depth, alpha, beta);
             return rating;
         }
 
-        List<Move> legalMoves = legalMoveProvider.getLegalMoves(newBoard, board.getNextColor());
-        HashMap<Move, Integer> ratedMoves = new HashMap<>();
-        HashMap<Move, ForkJoinTask<Integer>> taskHashMap = new HashMap<>();
+        // futility pruning: quiet moves can't raise the rating up to alpha in the few remaining levels
+        boolean futile = !inCheck && depth < FUTILITY_MARGINS.length && Math.abs(alpha) < MATE_BOUND &&
+                staticEvaluation + FUTILITY_MARGINS[depth] <= alpha;
+
+        int originalAlpha = alpha;
+        Move bestMove = null;
+        int moveNumber = 0;
+        List<Move> triedQuietMoves = new ArrayList<>();
+        for(Move legalMove : moveOrdering.order(board, legalMoves, level, previousMove, hashMove)){
+            if(capturesKing(board, legalMove)){
+                return MATE - level;
+            }
+            moveNumber++;
+            boolean quiet = MoveOrdering.isQuiet(board, legalMove);
+            boolean reducible = quiet && !inCheck && depth >= LATE_MOVE_REDUCTION_DEPTH && moveNumber > LATE_MOVE_REDUCTION_MOVES;
+
+            Board newBoard = board.deepClone();
+            newBoard.playMove(legalMove);
+            // moves which give check are neither pruned nor reduced
+            boolean givesCheck = (futile && quiet || reducible) && legalMoveProvider.isChecked(newBoard, newBoard.getNextColor());
 
-        legalMoves.forEach(move -> {
-            RecursiveMinMaxTask task = new RecursiveMinMaxTask(newBoard, move, currentLevel+1, playerColor, MAXLEVEL);
-            ForkJoinTask<Integer> runningTask = getPool().submit(task);
-            taskHashMap.put(move, runningTask);
-        });
+            if(futile && quiet && moveNumber > 1 && !givesCheck){
+                continue;
+            }
 
-        taskHashMap.forEach((key, value) -> ratedMoves.put(key, value.join()));
-        Optional<Map.Entry<Move, Integer>> bestOptionalMove = ratedMoves.entrySet().stream().max(Map.Entry.comparingByValue());
-        return bestOptionalMove.map(moveIntegerEntry -> rating + moveIntegerEntry.getValue()).orElse(-100);
+            int rating;
+            if(reducible && !givesCheck){
+                int reduction = Math.min(LATE_MOVE_REDUCTIONS[Math.min(depth, 63)][Math.min(moveNumber, 63)], depth - 1);
+                rating = -search(newBoard, level+1, depth-1-reduction, -alpha-1, -alpha, true, legalMove);
+                // the reduced search failed high, so the move gets the full depth
+                if(rating > alpha && reduction > 0){
+                    rating = -search(newBoard, level+1, depth-1, -beta, -alpha, true, legalMove);
+                }
+            }else{
+                rating = -search(newBoard, level+1, depth-1, -beta, -alpha, true, legalMove);
+            }
+            if(rating >= beta){
+                if(quiet){
+                    moveOrdering.updateCutoff(board, legalMove, level, depth, previousMove, triedQuietMoves);
+                }
+                store(board, legalMove, rating, level, depth, originalAlpha, beta);
+                return rating;
+            }
+            if(quiet){
+                triedQuietMoves.add(legalMove);
+            }
+            if(rating > alpha){
+                alpha = rating;
+                bestMove = legalMove;
+                updatePrincipalVariation(level, legalMove);
+            }
+        }
+        store(board, bestMove, alpha, level, depth, originalAlpha, beta);
+        return alpha;
     }
 
     /**
-     * Helper-Method that actually calculates the Rating of the Move.
-     * @return the Rating of the Move.
+     * Counts the node and checks whether the search was aborted. The time is only checked every
+     * {@link #TIME_CHECK_INTERVAL} nodes, together with passing the node count to the {@code SearchContext}.
+     * The stop flag of the gui is checked at every node.
+     * @param level the level of the node.
+     * @return true if the search has to return at once. The returned ratings don't matter any more then.
      */
-    public int rateMove(Board board, Move move){
+    private boolean isAborted(int level) {
+        selectiveDepth = Math.max(selectiveDepth, level);
+        if((++nodes & (TIME_CHECK_INTERVAL - 1)) == 0){
+            context.addNodes(TIME_CHECK_INTERVAL, selectiveDepth);
+            context.checkTime();
+            context.reportProgress();
+        }
+        return context.isAborted();
+    }
 
-        Board deepCopiedBoard = board.deepClone();
+    /**
+     * Empties the principal variation of a level when a node of the level is entered.
+     */
+    private void clearPrincipalVariation(int level) {
+        if(level < MAX_PRINCIPAL_VARIATION){
+            principalVariationLengths[level] = level;
+        }
+    }
 
-        int evaluation = 0;
-        Field f = move.getTo();
-        Piece pieceToHit = deepCopiedBoard.getPiece(f);
+    /**
+     * Sets the principal variation of a level to the given move followed by the principal variation of the next level.
+     */
+    private void updatePrincipalVariation(int level, Move move) {
+        if(level + 1 >= MAX_PRINCIPAL_VARIATION){
+            return;
+        }
+        Move[] principalVariation = getPrincipalVariationRow(level);
+        principalVariation[level] = move;
+        int length = Math.max(principalVariationLengths[level + 1], level + 1);
+        if(length > level + 1){
+            System.arraycopy(principalVariations[level + 1], level + 1, principalVariation, level + 1, length - level - 1);
+        }
+        principalVariationLengths[level] = length;
+    }
 
-        if(deepCopiedBoard.getNextColor() == playerColor){
-            evaluation -= (pieceToHit == null) ? 0 : (pieceToHit.getTypeOfFigure().getValue());
-        }else{
-            evaluation += (pieceToHit == null) ? 0 : (pieceToHit.getTypeOfFigure().getValue());
+    private Move[] getPrincipalVariationRow(int level) {
+        if(principalVariations[level] == null){
+            principalVariations[level] = new Move[MAX_PRINCIPAL_VARIATION];
         }
+        return principalVariations[level];
+    }
 
-        if(legalMoveProvider.isChecked(deepCopiedBoard, playerColor)) {
-            evaluation += 1;
+    /**
+     * Stores the result of a node in the transposition table. The bound is derived from the search window of the node.
+     * @param move the best move or null if no move reached alpha.
+     */
+    private void store(Board board, Move move, int rating, int level, int depth, int alpha, int beta) {
+        // the rating of an aborted search is incomplete
+        if(context.isAborted()){
+            return;
         }
-        if(legalMoveProvider.isChecked(deepCopiedBoard, getOppositeColor(playerColor))) {
-            evaluation -= 1;
+        int bound = rating <= alpha ? TranspositionTable.UPPER_BOUND :
+                rating >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+        context.getTranspositionTable().store(board.getHash(), move, toTranspositionTable(rating, level), depth, bound);
+    }
+
+    /**
+     * Converts a rating for the transposition table. Mate ratings count the levels from the root, but a position
+     * can be reached at different levels, so they are stored as distance from the stored position instead.
+     */
+    static int toTranspositionTable(int rating, int level) {
+        if(rating >= MATE_BOUND){
+            return rating + level;
+        }else if(rating <= -MATE_BOUND){
+            return rating - level;
         }
-        if(legalMoveProvider.isCheckmated(deepCopiedBoard, playerColor)){
-                evaluation += 100;
+        return rating;
+    }
+
+    /**
+     * Converts a rating of the transposition table back to a rating which counts mates from the root.
+     * @see #toTranspositionTable(int, int)
+     */
+    static int fromTranspositionTable(int rating, int level) {
+        if(rating >= MATE_BOUND){
+            return rating - level;
+        }else if(rating <= -MATE_BOUND){
+            return rating + level;
+        }
+        return rating;
+    }
+
+    /**
+     * Rates the given {@code Board} from the view of the side to move by only playing captures and promotions,
+     * until the position is quiet. The side to move may always stand pat with the static evaluation instead of capturing.
+     * Captures which can't raise the rating up to alpha (delta pruning) or which lose material
+     * according to the static exchange evaluation are skipped.
+     * @param board the board to rate.
+     * @param level the number of moves played since the root.
+     * @param alpha the rating the side to move is already guaranteed.
+     * @param beta the rating the opponent is already guaranteed.
+     * @return the Rating of the Board.
+     */
+    private int quiescence(Board board, int level, int alpha, int beta) {
+        clearPrincipalVariation(level);
+        if(isAborted(level)){
+            return 0;
         }
-        if(legalMoveProvider.isCheckmated(deepCopiedBoard, getOppositeColor(playerColor))){
-                evaluation -= 100;
+        Integer recognized = MaterialTable.recognize(board);
+        if(recognized != null){
+            return recognized;
         }
+        int standPat = evaluator.evaluate(board);
+        if(standPat >= beta){
+            return standPat;
+        }
+        alpha = Math.max(alpha, standPat);
+
+        // the captures are only pseudo legal, the ones which leave the own king in check are rejected after they are played
+        for(Move capture : MoveOrdering.orderCaptures(board, legalMoveProvider.getPseudoLegalCaptures(board, board.getNextColor()))){
+            if(capturesKing(board, capture)){
+                return MATE - level;
+            }
+            if(capture.getPromoteTo() == null){
+                if(standPat + MoveOrdering.captureGain(board, capture) + DELTA_MARGIN <= alpha){
+                    continue;
+                }
+                if(staticExchange.evaluate(board, capture) < 0){
+                    continue;
+                }
+            }
+            Board newBoard = board.deepClone();
+            newBoard.playMove(capture);
+            if(legalMoveProvider.isChecked(newBoard, board.getNextColor())){
+                continue;
+            }
+            int rating = -quiescence(newBoard, level+1, -beta, -alpha);
+            if(rating >= beta){
+                return rating;
+            }
+            if(rating > alpha){
+                alpha = rating;
+                updatePrincipalVariation(level, capture);
+            }
+        }
+        return alpha;
+    }
 
-        return evaluation;
+    /**
+     * Helper-Method that checks whether a move captures the king, which means that the previous move was illegal.
+     * @return true if the target field of the move holds a king.
+     */
+    private boolean capturesKing(Board board, Move move){
+        return board.getPiece(move.getTo()) != null && board.getPiece(move.getTo()).getTypeOfFigure() == Type.KING;
     }
 
     /**
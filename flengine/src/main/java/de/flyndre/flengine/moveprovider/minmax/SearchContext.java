@@ -0,0 +1,215 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.converter.StdoutWriter;
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.datamodel.enums.Difficulty;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The state which all tasks of a search share. It belongs to a {@code MinMax} and is kept between the searches
+ * of a game, so that a search can use what the previous ones learned about the following positions.
+ */
+public class SearchContext {
+
+    /**
+     * Size of the transposition table in megabytes until the options request another size.
+     */
+    private static final int DEFAULT_HASH_SIZE = 16;
+    /**
+     * Size of the evaluation cache in megabytes until the options request another size.
+     */
+    private static final int DEFAULT_EVAL_CACHE_SIZE = 4;
+    /**
+     * Minimal milliseconds between two progress reports to the gui.
+     */
+    private static final long REPORT_INTERVAL = 1000;
+
+    /**
+     * The move orderings of all search threads. Each thread uses its own one, because they are not synchronized.
+     */
+    private final Map<Thread, MoveOrdering> moveOrderings = new ConcurrentHashMap<>();
+    private final TranspositionTable transpositionTable = new TranspositionTable(DEFAULT_HASH_SIZE);
+    /**
+     * The static evaluation of the leaves of the search. It is cached, because the ratings of a position don't change
+     * between the searches of a game. The options choose between the classical and the neural network evaluation.
+     */
+    private CachedEvaluator evaluator = new CachedEvaluator(new ClassicalEvaluator(), DEFAULT_EVAL_CACHE_SIZE);
+    /**
+     * The evaluation of the current search, which adds the noise of the difficulty to the cached ratings.
+     */
+    private Evaluator searchEvaluator = evaluator;
+    /**
+     * The seed of the noise of the difficulty. It is kept during a game, because the transposition table
+     * keeps the ratings of the previous searches.
+     */
+    private long noiseSeed = ThreadLocalRandom.current().nextLong();
+    /**
+     * The difficulty of the previous search. The transposition table is cleared if it changes,
+     * because its ratings contain the noise of the old difficulty.
+     */
+    private Difficulty difficulty = null;
+    private int evalCacheSize = DEFAULT_EVAL_CACHE_SIZE;
+    private boolean useNnue = false;
+    private int hashSize = DEFAULT_HASH_SIZE;
+    /**
+     * The options of the current search, which tell whether the gui stopped it and how much time it has.
+     */
+    private Options options = new Options();
+    private Color color = Color.WHITE;
+    /**
+     * Whether the current search ran out of time or used up the nodes of its difficulty.
+     */
+    private volatile boolean outOfBudget = false;
+    /**
+     * Statistics of the current search, reported to the gui.
+     */
+    private final LongAdder nodes = new LongAdder();
+    private final AtomicInteger selectiveDepth = new AtomicInteger();
+    private final AtomicLong lastReport = new AtomicLong();
+    private volatile int depth = 0;
+    private long startTime = System.currentTimeMillis();
+
+    /**
+     * Prepares the state for the next search of the game. History ratings and old entries of the transposition table
+     * are kept, but they are aged, so that the results of the new search replace them.
+     * @param options the options of the search. The transposition table and the evaluation cache are resized
+     *                if they request another size, and the evaluation is exchanged if they request another one.
+     *                The difficulty decides the noise of the evaluation, and the transposition table is cleared
+     *                if it changes.
+     * @param color the color which searches its move.
+     */
+    public void newSearch(Options options, Color color) {
+        this.options = options;
+        this.color = color;
+        this.outOfBudget = false;
+        this.nodes.reset();
+        this.selectiveDepth.set(0);
+        this.depth = 0;
+        this.startTime = System.currentTimeMillis();
+        this.lastReport.set(startTime);
+        if (options.getHashSize() != this.hashSize) {
+            transpositionTable.resize(options.getHashSize());
+            this.hashSize = options.getHashSize();
+        }
+        if (options.isUseNnue() != this.useNnue) {
+            // the cached ratings belong to the other evaluation
+            evaluator = new CachedEvaluator(options.isUseNnue() ? new NnueEvaluator() : new ClassicalEvaluator(),
+                    options.getEvalCacheSize());
+            this.useNnue = options.isUseNnue();
+            this.evalCacheSize = options.getEvalCacheSize();
+        } else if (options.getEvalCacheSize() != this.evalCacheSize) {
+            evaluator.resize(options.getEvalCacheSize());
+            this.evalCacheSize = options.getEvalCacheSize();
+        }
+        if (options.getDifficulty() != this.difficulty) {
+            transpositionTable.clear();
+            this.difficulty = options.getDifficulty();
+        }
+        int noise = difficulty.getEvaluationNoise();
+        searchEvaluator = noise > 0 ? new NoisyEvaluator(evaluator, noise, noiseSeed) : evaluator;
+        transpositionTable.newSearch();
+        // the orderings of retired worker threads are not used any more
+        moveOrderings.keySet().removeIf(thread -> !thread.isAlive());
+        moveOrderings.values().forEach(MoveOrdering::age);
+    }
+
+    /**
+     * Forgets everything learned in the previous searches, because the following positions belong to another game.
+     */
+    public void newGame() {
+        transpositionTable.clear();
+        moveOrderings.clear();
+        noiseSeed = ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * Checks whether the current search has used up its time or the nodes of its difficulty.
+     * Pondering searches don't run out of time and infinite searches don't run out of nodes, because the gui
+     * stops them. The first iteration is never stopped by the nodes, so that there is always a searched move.
+     */
+    public void checkTime() {
+        if (TimeManager.isTimed(options, color) && !options.isPondering() &&
+                options.getElapsedTime() >= TimeManager.getBudget(options, color)) {
+            outOfBudget = true;
+        }
+        if (depth > 1 && !options.isInfinite() && nodes.sum() >= options.getDifficulty().getMaxNodes()) {
+            outOfBudget = true;
+        }
+    }
+
+    /**
+     * Starts the next iteration of the iterative deepening.
+     * @param depth the depth of the iteration.
+     */
+    public void startIteration(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Adds searched nodes to the statistics.
+     * @param count the number of nodes.
+     * @param selectiveDepth the highest level the nodes were searched in.
+     */
+    public void addNodes(long count, int selectiveDepth) {
+        nodes.add(count);
+        this.selectiveDepth.accumulateAndGet(selectiveDepth, Math::max);
+    }
+
+    /**
+     * Sends the statistics of the search to the gui, but at most once per {@link #REPORT_INTERVAL}.
+     */
+    public void reportProgress() {
+        long now = System.currentTimeMillis();
+        long last = lastReport.get();
+        if (now - last >= REPORT_INTERVAL && lastReport.compareAndSet(last, now)) {
+            StdoutWriter.writeToStdout("info depth " + depth + " seldepth " + getSelectiveDepth() + " " + formatStatistics());
+        }
+    }
+
+    /**
+     * Formats the node count, the speed, the time and the usage of the transposition table for an UCI info line.
+     * @return the statistics as "nodes", "nps", "time" and "hashfull" with their values.
+     */
+    public String formatStatistics() {
+        long time = System.currentTimeMillis() - startTime;
+        long nodeCount = nodes.sum();
+        return "nodes " + nodeCount + " nps " + nodeCount * 1000 / Math.max(1, time) + " time " + time +
+                " hashfull " + transpositionTable.hashfull();
+    }
+
+    /**
+     * @return the highest level reached in the current search, including the quiescence search.
+     */
+    public int getSelectiveDepth() {
+        return selectiveDepth.get();
+    }
+
+    /**
+     * @return true if the current search was stopped by the gui or ran out of its budget at the last check.
+     */
+    public boolean isAborted() {
+        return outOfBudget || options.isStopped();
+    }
+
+    /**
+     * @return the move ordering of the current thread.
+     */
+    public MoveOrdering getMoveOrdering() {
+        return moveOrderings.computeIfAbsent(Thread.currentThread(), thread -> new MoveOrdering());
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    public Evaluator getEvaluator() {
+        return searchEvaluator;
+    }
+}
@@ -0,0 +1,68 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Field;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Piece;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.datamodel.enums.Type;
+import de.flyndre.flengine.rules.Rule;
+
+/**
+ * Static exchange evaluation (SEE) of captures.
+ * Plays out the sequence of captures on the target field, always using the least valuable attacker,
+ * and returns the material balance for the side that starts the exchange.
+ * Every side may stop capturing when continuing would lose material.
+ */
+public class StaticExchange {
+
+    private final Rule rule;
+
+    public StaticExchange(Rule rule) {
+        this.rule = rule;
+    }
+
+    /**
+     * Evaluates the material outcome of the given capture.
+     * @param board current chess board
+     * @param move the capture to evaluate
+     * @return the expected material gain in centipawns, negative if the capture loses material
+     */
+    public int evaluate(Board board, Move move) {
+
+        Board exchangeBoard = board.deepClone();
+        Piece attacker = exchangeBoard.getPiece(move.getFrom());
+        Piece victim = exchangeBoard.getPiece(move.getTo());
+
+        // an en passant capture takes a pawn although the target field is empty
+        int gain = victim == null ? (attacker.getTypeOfFigure() == Type.PAWN &&
+                move.getFrom().getRow() != move.getTo().getRow() ? Type.PAWN.getCentipawnValue() : 0) :
+                victim.getTypeOfFigure().getCentipawnValue();
+
+        exchangeBoard.setPiece(null, move.getFrom());
+        exchangeBoard.setPiece(move.getPromoteTo() == null ? attacker : new Piece(move.getPromoteTo(), attacker.getColor()), move.getTo());
+
+        return gain - exchange(exchangeBoard, move.getTo(), attacker.getColor() == Color.WHITE ? Color.BLACK : Color.WHITE);
+    }
+
+    /**
+     * Recursively captures on the target field with the least valuable attacker of the given color.
+     * @param board the board of the running exchange, which is modified
+     * @param target the field the exchange takes place on
+     * @param color the color to capture next
+     * @return the material the given color can win by continuing the exchange, at least 0
+     */
+    private int exchange(Board board, Field target, Color color) {
+
+        Field from = rule.getLeastValuableAttacker(board, target, color);
+        if (from == null) {
+            return 0;
+        }
+        int captured = board.getPiece(target).getTypeOfFigure().getCentipawnValue();
+
+        board.setPiece(board.getPiece(from), target);
+        board.setPiece(null, from);
+
+        return Math.max(0, captured - exchange(board, target, color == Color.WHITE ? Color.BLACK : Color.WHITE));
+    }
+}
@@ -0,0 +1,65 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.datamodel.enums.Color;
+
+/**
+ * Decides how much of the time on the clock a search may use, based on the parameters of the go command.
+ */
+class TimeManager {
+
+    /**
+     * Number of moves the remaining time is split into if the gui doesn't tell the moves until the next time control.
+     */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    /**
+     * Milliseconds which are kept for the communication with the gui.
+     */
+    private static final long MOVE_OVERHEAD = 50;
+
+    private TimeManager() {
+    }
+
+    /**
+     * @param options the options of the calculation.
+     * @param color the color which searches its move.
+     * @return true if the search is limited by time instead of by the recursion depth.
+     */
+    static boolean isTimed(Options options, Color color) {
+        return options.getMoveTime() > 0 || getTime(options, color) > 0;
+    }
+
+    /**
+     * Calculates the time the search should use for its move.
+     * @param options the options of the calculation.
+     * @param color the color which searches its move.
+     * @return the time in milliseconds, which is at least 1.
+     */
+    static long getBudget(Options options, Color color) {
+        if (options.getMoveTime() > 0) {
+            return Math.max(1, options.getMoveTime() - MOVE_OVERHEAD);
+        }
+        long time = getTime(options, color);
+        long increment = color == Color.WHITE ? options.getWhiteIncrement() : options.getBlackIncrement();
+        int movesToGo = options.getMovesToGo() > 0 ? options.getMovesToGo() : DEFAULT_MOVES_TO_GO;
+        // never use more than half of the remaining time for a single move
+        long budget = Math.min(time / movesToGo + increment * 3 / 4, time / 2);
+        return Math.max(1, budget - MOVE_OVERHEAD);
+    }
+
+    /**
+     * Decides whether another iteration of the iterative deepening should be started. The next iteration takes
+     * several times longer than all previous ones together, so it is only started within the first half of the budget.
+     * A ponder search never stops on its own, because the clock doesn't run yet.
+     * @param options the options of the calculation.
+     * @param color the color which searches its move.
+     * @return true if there is enough time left for another iteration.
+     */
+    static boolean canStartIteration(Options options, Color color) {
+        return !isTimed(options, color) || options.isPondering() || options.getElapsedTime() < getBudget(options, color) / 2;
+    }
+
+    private static long getTime(Options options, Color color) {
+        return color == Color.WHITE ? options.getWhiteTime() : options.getBlackTime();
+    }
+}
@@ -0,0 +1,191 @@
+package de.flyndre.flengine.moveprovider.minmax;
+
+import de.flyndre.flengine.datamodel.Field;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.enums.Line;
+import de.flyndre.flengine.datamodel.enums.Row;
+import de.flyndre.flengine.datamodel.enums.Type;
+
+/**
+ * A hash table which stores search results by the Zobrist hash of the position.
+ * It is shared by all search threads without locks: every entry is stored as two longs, the hash xor the data
+ * and the data. A reader only accepts an entry if both longs belong together, so entries torn by a concurrent write
+ * are treated as a miss. The table is always replaced at the index of the hash, except that an entry of the current
+ * search is not replaced by a shallower one.
+ */
+public class TranspositionTable {
+
+    /**
+     * The stored rating is exact.
+     */
+    public static final int EXACT = 1;
+    /**
+     * The real rating is at least the stored rating, because the search failed high.
+     */
+    public static final int LOWER_BOUND = 2;
+    /**
+     * The real rating is at most the stored rating, because the search failed low.
+     */
+    public static final int UPPER_BOUND = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final Type[] PROMOTIONS = {null, Type.QUEEN, Type.ROOK, Type.BISHOP, Type.KNIGHT};
+
+    private long[] keys;
+    private long[] data;
+    private int mask;
+    /**
+     * Number of the current search, stored with every entry so that entries of old searches are replaced first.
+     */
+    private volatile int age = 0;
+
+    /**
+     * Creates a new table.
+     * @param sizeInMegabytes the maximal memory of the table. The number of entries is rounded down to a power of two.
+     */
+    public TranspositionTable(int sizeInMegabytes) {
+        resize(sizeInMegabytes);
+    }
+
+    /**
+     * Resizes the table, which clears all entries.
+     * @param sizeInMegabytes the maximal memory of the table. The number of entries is rounded down to a power of two.
+     */
+    public synchronized void resize(int sizeInMegabytes) {
+        long entries = Math.max(1L, (long) sizeInMegabytes * 1024 * 1024 / ENTRY_BYTES);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        keys = new long[keys.length];
+        data = new long[data.length];
+    }
+
+    /**
+     * Starts a new search. Entries of older searches are kept, but they are replaced first.
+     */
+    public void newSearch() {
+        age = (age + 1) & 0x3F;
+    }
+
+    /**
+     * Looks up the entry of a position.
+     * @param hash the Zobrist hash of the position.
+     * @return the entry or null if the position is not stored.
+     */
+    public Entry probe(long hash) {
+        int index = (int) hash & mask;
+        long entryData = data[index];
+        if ((keys[index] ^ entryData) != hash || entryData == 0) {
+            return null;
+        }
+        return new Entry(entryData);
+    }
+
+    /**
+     * Stores the result of a search of a position.
+     * @param hash the Zobrist hash of the position.
+     * @param move the best move or null if none is known.
+     * @param rating the rating of the position.
+     * @param depth the remaining depth the rating was searched with.
+     * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}.
+     */
+    public void store(long hash, Move move, int rating, int depth, int bound) {
+        int index = (int) hash & mask;
+        long previousData = data[index];
+        if (previousData != 0 && (keys[index] ^ previousData) != hash && new Entry(previousData).age == age &&
+                new Entry(previousData).depth > depth) {
+            return;
+        }
+        // keep the best move of the position if the new result doesn't know one
+        if (move == null && (keys[index] ^ previousData) == hash && previousData != 0) {
+            move = new Entry(previousData).getMove();
+        }
+        long entryData = (rating & 0xFFFFFFFFL)
+                | (long) encodeMove(move) << 32
+                | (long) (Math.max(0, Math.min(depth, 0x7F))) << 47
+                | (long) bound << 54
+                | (long) age << 56;
+        data[index] = entryData;
+        keys[index] = hash ^ entryData;
+    }
+
+    /**
+     * Estimates how full the table is with entries of the current search.
+     * @return the usage in permill, as expected by the UCI "hashfull" info.
+     */
+    public int hashfull() {
+        int sample = Math.min(1000, data.length);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (data[i] != 0 && new Entry(data[i]).age == age) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    private static int encodeMove(Move move) {
+        if (move == null) {
+            return 0;
+        }
+        int promotion = 0;
+        for (int i = 1; i < PROMOTIONS.length; i++) {
+            if (PROMOTIONS[i] == move.getPromoteTo()) {
+                promotion = i;
+            }
+        }
+        // 0 is reserved for "no move", so the encoding starts with 1
+        return 1 + (move.getFrom().hashCode() | move.getTo().hashCode() << 6 | promotion << 12);
+    }
+
+    /**
+     * A decoded entry of the table.
+     */
+    public static class Entry {
+        private final int rating;
+        private final int move;
+        private final int depth;
+        private final int bound;
+        private final int age;
+
+        private Entry(long data) {
+            this.rating = (int) data;
+            this.move = (int) (data >>> 32) & 0x7FFF;
+            this.depth = (int) (data >>> 47) & 0x7F;
+            this.bound = (int) (data >>> 54) & 0x3;
+            this.age = (int) (data >>> 56) & 0x3F;
+        }
+
+        public int getRating() {
+            return rating;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getBound() {
+            return bound;
+        }
+
+        /**
+         * @return the best move of the position or null if none is known.
+         */
+        public Move getMove() {
+            if (move == 0) {
+                return null;
+            }
+            int encoded = move - 1;
+            Field from = new Field(Line.values()[(encoded & 0x3F) / 8], Row.values()[(encoded & 0x3F) % 8]);
+            Field to = new Field(Line.values()[(encoded >>> 6 & 0x3F) / 8], Row.values()[(encoded >>> 6 & 0x3F) % 8]);
+            return new Move(from, to, PROMOTIONS[encoded >>> 12 & 0x7]);
+        }
+    }
+}
@@ -474,4 +474,100 @@ public class PieceRule {
         }
         return false;
     }
+
+    /**
+     * Returns the field of the least valuable piece of the given color that covers the given field. <br>
+     * Pieces are tried in the order pawn, knight, bishop, rook, queen and king.
+     * @param board current chess board
+     * @param field field that's checked
+     * @param color color of player that covers the field
+     * @return the field of the least valuable attacker or null if the field is not covered
+     */
+    public Field getLeastValuableAttacker(Board board, Field field, Color color) {
+
+        int[][] rookDirections = {{0,1},{0,-1},{1,0},{-1,0}};
+        int[][] bishopDirections = {{1,1},{-1,-1},{1,-1},{-1,1}};
+        int[][] knightMoves = {{-2,-1},{-2,1},{2,-1},{2,1},{-1,-2},{-1,2},{1,-2},{1,2}};
+        int pawnDirection = color.equals(Color.WHITE) ? -1 : 1;
+
+        int fieldLine = field.getLine().ordinal();
+        int fieldRow = field.getRow().ordinal();
+
+        // field is covered by pawn
+        if (color.equals(Color.WHITE) && fieldLine > 0 || color.equals(Color.BLACK) && fieldLine < 7) {
+            for (int j = -1; j <= 1; j += 2) {
+                if (fieldRow + j >= 0 && fieldRow + j < 8 &&
+                        new Piece(Type.PAWN, color).equals(board.getPiece(new Field(LINES[fieldLine + pawnDirection], ROWS[fieldRow + j]))))
+                {
+                    return new Field(LINES[fieldLine + pawnDirection], ROWS[fieldRow + j]);
+                }
+            }
+        }
+
+        // field is covered by knight
+        for (int[] knightMove : knightMoves) {
+            if (fieldLine + knightMove[0] >= 0 && fieldLine + knightMove[0] < 8 && fieldRow + knightMove[1] >= 0 && fieldRow + knightMove[1] < 8 &&
+                    new Piece(Type.KNIGHT, color).equals(board.getPiece(new Field(LINES[fieldLine + knightMove[0]], ROWS[fieldRow + knightMove[1]]))))
+            {
+                return new Field(LINES[fieldLine + knightMove[0]], ROWS[fieldRow + knightMove[1]]);
+            }
+        }
+
+        // field is covered by a sliding piece, the cheapest one is taken
+        Field bishopField = getSlidingAttacker(board, field, color, bishopDirections, Type.BISHOP);
+        if (bishopField != null) return bishopField;
+        Field rookField = getSlidingAttacker(board, field, color, rookDirections, Type.ROOK);
+        if (rookField != null) return rookField;
+        Field queenField = getSlidingAttacker(board, field, color, bishopDirections, Type.QUEEN);
+        if (queenField != null) return queenField;
+        queenField = getSlidingAttacker(board, field, color, rookDirections, Type.QUEEN);
+        if (queenField != null) return queenField;
+
+        // field is covered by king
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+
+                if (i == 0 && j == 0) continue;
+
+                if (fieldLine + i >= 0 && fieldLine + i < 8 && fieldRow + j >= 0 && fieldRow + j < 8 &&
+                        new Piece(Type.KING, color).equals(board.getPiece(new Field(LINES[fieldLine + i], ROWS[fieldRow + j]))))
+                {
+                    return new Field(LINES[fieldLine + i], ROWS[fieldRow + j]);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the field of a sliding piece of the given type and color that reaches the given field
+     * in one of the given directions.
+     * @param board current chess board
+     * @param field field that's checked
+     * @param color color of the sliding piece
+     * @param directions directions to look into
+     * @param type type of the sliding piece
+     * @return the field of the sliding piece or null if there is none
+     */
+    private Field getSlidingAttacker(Board board, Field field, Color color, int[][] directions, Type type) {
+
+        for (int[] direction : directions) {
+
+            int l = field.getLine().ordinal() + direction[0];
+            int r = field.getRow().ordinal() + direction[1];
+
+            while (l >= 0 && l < 8 && r >= 0 && r < 8)
+            {
+                if (board.getPiece(new Field(LINES[l], ROWS[r])) != null) {
+                    if (new Piece(type, color).equals(board.getPiece(new Field(LINES[l], ROWS[r])))) {
+                        return new Field(LINES[l], ROWS[r]);
+                    }
+                    break;
+                }
+                l += direction[0];
+                r += direction[1];
+            }
+        }
+        return null;
+    }
 }
\ No newline at end of file
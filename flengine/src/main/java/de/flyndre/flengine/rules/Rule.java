@@ -68,9 +68,63 @@ public class Rule extends PieceRule {
         return moves;
     }
 
+    /**
+     * Returns all possible captures and promotions of a given color. <br>
+     * En passant moves count as captures, although the target field is empty.
+     * @param board current chess board
+     * @param color piece color
+     * @return list of all possible captures and promotions
+     */
+    public List<Move> getLegalCaptures(Board board, Color color) {
+
+        List<Move> captures = new ArrayList<>();
+
+        for (Move move : getLegalMoves(board, color)) {
+            if (board.getPiece(move.getTo()) != null || move.getPromoteTo() != null || move.getTo().equals(board.getEnPassantField()) &&
+                    board.getPiece(move.getFrom()).getTypeOfFigure().equals(Type.PAWN))
+            {
+                captures.add(move);
+            }
+        }
+        return captures;
+    }
+
+    /**
+     * Returns all captures and promotions of a given color without checking whether they leave the own king in check. <br>
+     * This skips the search for pinned pieces and checking fields, so the caller has to reject the moves
+     * after which {@link #isChecked(Board, Color)} is true. En passant moves count as captures.
+     * @param board current chess board
+     * @param color piece color
+     * @return list of all pseudo legal captures and promotions
+     */
+    public List<Move> getPseudoLegalCaptures(Board board, Color color) {
+
+        List<Move> captures = new ArrayList<>();
+
+        for (int line = 0; line < 8; line++) {
+            for (int row = 0; row < 8; row++) {
+
+                Field field = new Field(LINES[line], ROWS[row]);
+
+                if (board.getPiece(field) == null || !board.getPiece(field).getColor().equals(color)) continue;
+
+                boolean pawn = board.getPiece(field).getTypeOfFigure().equals(Type.PAWN);
+                for (Move move : getLegalMoves(board, field)) {
+                    if (board.getPiece(move.getTo()) != null || move.getPromoteTo() != null ||
+                            pawn && move.getTo().equals(board.getEnPassantField()))
+                    {
+                        captures.add(move);
+                    }
+                }
+            }
+        }
+        return captures;
+    }
+
     /**
      * Returns if the given color is in check. <br>
      * A check occurs if the current field of the king is covered by a piece of the opponent.
+     * The field of the king is taken from the board, only if it is not known the board is searched for the king.
      * @param board current chess board
      * @param color player color to check
      * @return true if the king is in check
@@ -79,6 +133,14 @@ public class Rule extends PieceRule {
 
         Color opponentColor = color.equals(Color.WHITE) ? Color.BLACK : Color.WHITE;
 
+        Field knownKingField = board.getKingField(color);
+        if (knownKingField != null && board.getPiece(knownKingField) != null &&
+                board.getPiece(knownKingField).getTypeOfFigure().equals(Type.KING) &&
+                board.getPiece(knownKingField).getColor().equals(color))
+        {
+            return isFieldCovered(board, knownKingField, opponentColor);
+        }
+
         for (int line = 0; line < 8; line++) {
             for (int row = 0; row < 8; row++) {
 
@@ -0,0 +1,68 @@
+package de.flyndre.flengine;
+
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Field;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardTest {
+
+    @Test
+    void testHashAfterMoves() {
+
+        Board board = Converter.convertStringToBoard("startpos");
+        List.of("e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6", "e1g1")
+                .forEach(move -> board.playMove(Converter.convertStringToMove(move)));
+
+        Board fenBoard = Converter.convertStringToBoard("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQ1RK1 b kq - 0 1");
+
+        assertEquals(fenBoard.getHash(), board.getHash());
+        assertEquals(board.getHash(), board.deepClone().getHash());
+    }
+
+    @Test
+    void testPieceSquareValuesAfterMoves() {
+
+        Board board = Converter.convertStringToBoard("startpos");
+        List.of("e2e4", "d7d5", "e4d5", "d8d5", "g1f3", "c8g4", "e1e2")
+                .forEach(move -> board.playMove(Converter.convertStringToMove(move)));
+
+        Board fenBoard = Converter.convertStringToBoard("rn2kbnr/ppp1pppp/8/3q4/6b1/5N2/PPPPKPPP/RNBQ1B1R b kq - 0 1");
+
+        assertEquals(fenBoard.getMiddlegameValue(), board.getMiddlegameValue());
+        assertEquals(fenBoard.getEndgameValue(), board.getEndgameValue());
+        assertEquals(fenBoard.getPhase(), board.getPhase());
+        assertEquals(board.getMiddlegameValue(), board.deepClone().getMiddlegameValue());
+    }
+
+    @Test
+    void testHashOfTransposition() {
+
+        Board board = Converter.convertStringToBoard("startpos");
+        List.of("g1f3", "g8f6", "b1c3", "b8c6").forEach(move -> board.playMove(Converter.convertStringToMove(move)));
+        Board transposedBoard = Converter.convertStringToBoard("startpos");
+        List.of("b1c3", "b8c6", "g1f3", "g8f6").forEach(move -> transposedBoard.playMove(Converter.convertStringToMove(move)));
+
+        assertEquals(board.getHash(), transposedBoard.getHash());
+    }
+
+    @Test
+    void testNullMove() {
+
+        Board board = Converter.convertStringToBoard("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2");
+        long hash = board.getHash();
+
+        Field enPassantField = board.playNullMove();
+        assertNull(board.getEnPassantField());
+        assertNotEquals(hash, board.getHash());
+
+        board.undoNullMove(enPassantField);
+        assertEquals(hash, board.getHash());
+        assertEquals(Converter.convertStringToBoard("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2").getEnPassantField(),
+                board.getEnPassantField());
+    }
+}
@@ -0,0 +1,93 @@
+package de.flyndre.flengine;
+
+import de.flyndre.flengine.controller.Controller;
+import de.flyndre.flengine.controller.ProviderStage;
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.moveprovider.MoveProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ControllerTest {
+
+    private final Move e2e4 = Converter.convertStringToMove("e2e4");
+    private final Move d2d4 = Converter.convertStringToMove("d2d4");
+    private final Move g1f3 = Converter.convertStringToMove("g1f3");
+
+    /**
+     * A search which only returns its move when it is cancelled, like an infinite search.
+     */
+    private static MoveProvider searchUntilCancelled(Move move) {
+        return (board, options) -> {
+            for (int i = 0; i < 200 && !options.isStopped(); i++) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            return List.of(move);
+        };
+    }
+
+    private static ProviderStage stage(String name, MoveProvider moveProvider, long budget) {
+        return new ProviderStage(name, moveProvider, true, budget, 0, Integer.MAX_VALUE, 0, 32);
+    }
+
+    @Test
+    void testSlowProviderFallsThroughToSearch() throws InterruptedException {
+
+        Board board = Converter.convertStringToBoard("startpos");
+        CountDownLatch release = new CountDownLatch(1);
+        MoveProvider slow = (b, o) -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+            return List.of(e2e4);
+        };
+        ProviderStage stage = stage("slow", slow, 100);
+
+        long startTime = System.currentTimeMillis();
+        Move move = Controller.giveMove(board, new Options(), List.of(stage), (b, o) -> List.of(d2d4));
+        assertEquals(d2d4, move);
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+        release.countDown();
+    }
+
+    @Test
+    void testFastProviderWinsAndCancelsSearch() {
+
+        Board board = Converter.convertStringToBoard("rnbqkbnr/1ppppppp/p7/8/8/P7/1PPPPPPP/RNBQKBNR w KQkq - 0 2");
+        Options options = new Options();
+        ProviderStage stage = stage("fast", (b, o) -> List.of(e2e4), 5000);
+
+        long startTime = System.currentTimeMillis();
+        Move move = Controller.giveMove(board, options, List.of(stage), searchUntilCancelled(d2d4));
+        assertEquals(e2e4, move);
+        assertTrue(options.isStopped());
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+    }
+
+    @Test
+    void testEmptyProviderDefersToNextStage() {
+
+        Board board = Converter.convertStringToBoard("rnbqkbnr/ppppppp1/7p/8/8/7P/PPPPPPP1/RNBQKBNR w KQkq - 0 2");
+        Options options = new Options();
+        ProviderStage empty = stage("empty", (b, o) -> List.of(), 5000);
+        ProviderStage next = stage("next", (b, o) -> List.of(g1f3), 5000);
+
+        Move move = Controller.giveMove(board, options, List.of(empty, next), searchUntilCancelled(d2d4));
+        assertEquals(g1f3, move);
+        assertTrue(options.isStopped());
+        assertEquals(1, empty.getRequests());
+        assertEquals(0, empty.getMisses());
+    }
+}
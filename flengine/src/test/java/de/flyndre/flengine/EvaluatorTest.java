@@ -0,0 +1,154 @@
+package de.flyndre.flengine;
+
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.PieceSquareTable;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.moveprovider.minmax.CachedEvaluator;
+import de.flyndre.flengine.moveprovider.minmax.ClassicalEvaluator;
+import de.flyndre.flengine.moveprovider.minmax.Evaluator;
+import de.flyndre.flengine.moveprovider.minmax.NnueEvaluator;
+import de.flyndre.flengine.moveprovider.minmax.NnueNetwork;
+import de.flyndre.flengine.moveprovider.minmax.NoisyEvaluator;
+import de.flyndre.flengine.moveprovider.minmax.PawnTable;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluatorTest {
+
+    @Test
+    void testStartPositionIsBalanced() {
+
+        Board board = Converter.convertStringToBoard("startpos");
+        assertEquals(0, new ClassicalEvaluator().evaluate(board));
+        assertEquals(PieceSquareTable.MAX_PHASE, board.getPhase());
+    }
+
+    @Test
+    void testEvaluationIsSymmetric() {
+
+        Evaluator evaluator = new ClassicalEvaluator();
+        Board white = Converter.convertStringToBoard("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQ1RK1 w kq - 0 1");
+        Board black = Converter.convertStringToBoard("rnbq1rk1/pppp1ppp/5n2/2b1p3/4P3/2N2N2/PPPP1PPP/R1BQKB1R b KQ - 0 1");
+        assertEquals(evaluator.evaluate(white), evaluator.evaluate(black));
+    }
+
+    @Test
+    void testCentralKnightIsBetter() {
+
+        Evaluator evaluator = new ClassicalEvaluator();
+        Board center = Converter.convertStringToBoard("4k3/pppppppp/8/8/3N4/8/PPPPPPPP/4K3 w - - 0 1");
+        Board corner = Converter.convertStringToBoard("4k3/pppppppp/8/8/8/8/PPPPPPPP/N3K3 w - - 0 1");
+        assertTrue(evaluator.evaluate(center) > evaluator.evaluate(corner));
+    }
+
+    @Test
+    void testKingBelongsToTheCenterInTheEndgame() {
+
+        Evaluator evaluator = new ClassicalEvaluator();
+        Board center = Converter.convertStringToBoard("4k3/4p3/8/8/3K4/8/4P3/8 w - - 0 1");
+        Board corner = Converter.convertStringToBoard("4k3/4p3/8/8/8/8/4P3/K7 w - - 0 1");
+        assertTrue(evaluator.evaluate(center) > evaluator.evaluate(corner));
+    }
+
+    @Test
+    void testPawnHashOnlyChangesWithPawns() {
+
+        Board board = Converter.convertStringToBoard("startpos");
+        long pawnHash = board.getPawnHash();
+        board.playMove(Converter.convertStringToMove("g1f3"));
+        assertEquals(pawnHash, board.getPawnHash());
+        board.playMove(Converter.convertStringToMove("e7e5"));
+        assertNotEquals(pawnHash, board.getPawnHash());
+        assertEquals(board.getPawnHash(), board.deepClone().getPawnHash());
+    }
+
+    @Test
+    void testPassedPawns() {
+
+        Board board = Converter.convertStringToBoard("4k3/7p/p7/3P4/8/8/1p4P1/4K3 w - - 0 1");
+        PawnTable.Entry entry = new PawnTable().probe(board);
+        assertEquals(1L << Converter.convertStringToMove("d5d6").getFrom().hashCode(), entry.getPassedPawns(Color.WHITE));
+        assertEquals(1L << Converter.convertStringToMove("a6a5").getFrom().hashCode() |
+                1L << Converter.convertStringToMove("b2b1q").getFrom().hashCode(), entry.getPassedPawns(Color.BLACK));
+    }
+
+    @Test
+    void testDoubledAndIsolatedPawnsAreWorse() {
+
+        Evaluator evaluator = new ClassicalEvaluator();
+        Board connected = Converter.convertStringToBoard("4k3/3ppp2/8/8/8/8/3PP3/4K3 w - - 0 1");
+        Board doubled = Converter.convertStringToBoard("4k3/3ppp2/8/8/8/4P3/4P3/4K3 w - - 0 1");
+        assertTrue(evaluator.evaluate(connected) > evaluator.evaluate(doubled));
+    }
+
+    @Test
+    void testCachedEvaluatorEvaluatesPositionOnce() {
+
+        Board board = Converter.convertStringToBoard("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQ1RK1 b kq - 0 1");
+        AtomicInteger evaluations = new AtomicInteger();
+        Evaluator evaluator = new CachedEvaluator(position -> {
+            evaluations.incrementAndGet();
+            return new ClassicalEvaluator().evaluate(position);
+        }, 1);
+        int rating = evaluator.evaluate(board);
+        assertEquals(rating, evaluator.evaluate(board.deepClone()));
+        assertEquals(1, evaluations.get());
+        assertEquals(new ClassicalEvaluator().evaluate(board), rating);
+    }
+
+    @Test
+    void testNnueAccumulatorIsUpdatedIncrementally() {
+
+        Evaluator evaluator = new NnueEvaluator();
+        Board board = Converter.convertStringToBoard("startpos");
+        evaluator.attachAccumulator(board);
+        assertEquals(0, evaluator.evaluate(board));
+        List.of("e2e4", "d7d5", "e4d5", "d8d5", "g1f3", "c8g4", "e1e2")
+                .forEach(move -> board.playMove(Converter.convertStringToMove(move)));
+
+        Board fenBoard = Converter.convertStringToBoard("rn2kbnr/ppp1pppp/8/3q4/6b1/5N2/PPPPKPPP/RNBQ1B1R b kq - 0 1");
+        assertEquals(evaluator.evaluate(fenBoard), evaluator.evaluate(board));
+        assertNull(fenBoard.getAccumulator());
+        assertEquals(evaluator.evaluate(board), evaluator.evaluate(board.deepClone()));
+    }
+
+    @Test
+    void testBundledNetworkIsLoaded() throws IOException {
+
+        // the default network falls back to the distilled one, so the resource is loaded directly
+        NnueNetwork network;
+        try (InputStream input = NnueNetwork.class.getResourceAsStream(NnueNetwork.DEFAULT_NETWORK)) {
+            assertNotNull(input);
+            network = NnueNetwork.load(input);
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        network.save(output);
+        NnueNetwork loaded = NnueNetwork.load(new ByteArrayInputStream(output.toByteArray()));
+
+        Board board = Converter.convertStringToBoard("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQ1RK1 b kq - 0 1");
+        assertEquals(new NnueEvaluator(network).evaluate(board), new NnueEvaluator(loaded).evaluate(board));
+        assertEquals(new NnueEvaluator(network).evaluate(board), new NnueEvaluator(NnueNetwork.getDefault()).evaluate(board));
+        assertTrue(new NnueEvaluator(network).evaluate(Converter.convertStringToBoard("4k3/8/8/8/8/8/8/3QK3 w - - 0 1")) > 800);
+    }
+
+    @Test
+    void testNoisyEvaluatorKeepsRatingOfPosition() {
+
+        Board board = Converter.convertStringToBoard("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQ1RK1 b kq - 0 1");
+        Evaluator classical = new ClassicalEvaluator();
+        Evaluator noisy = new NoisyEvaluator(classical, 50, 42);
+
+        int rating = noisy.evaluate(board);
+        assertEquals(rating, noisy.evaluate(board.deepClone()));
+        assertTrue(Math.abs(rating - classical.evaluate(board)) <= 50);
+    }
+}
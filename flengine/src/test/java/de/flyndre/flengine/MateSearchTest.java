@@ -0,0 +1,55 @@
+package de.flyndre.flengine;
+
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.moveprovider.mate.MateSearch;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MateSearchTest {
+
+    private final MateSearch mateSearch = new MateSearch();
+
+    @Test
+    void testMateInOne() {
+
+        Board board = Converter.convertStringToBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        Options options = new Options();
+        options.setMateSearch(1);
+
+        List<Move> moves = mateSearch.getRecommendedMoves(board, options);
+
+        assertEquals(List.of(Converter.convertStringToMove("a1a8")), moves);
+    }
+
+    @Test
+    void testMateInTwo() {
+
+        // smothered mate: the queen sacrifice forces the rook onto g8
+        Board board = Converter.convertStringToBoard("r6k/6pp/7N/8/8/1Q6/8/6K1 w - - 0 1");
+        Options options = new Options();
+        options.setMateSearch(1);
+
+        assertTrue(mateSearch.getRecommendedMoves(board, options).isEmpty());
+
+        options.setMateSearch(2);
+        List<Move> moves = mateSearch.getRecommendedMoves(board, options);
+
+        assertEquals(List.of(Converter.convertStringToMove("b3g8")), moves);
+    }
+
+    @Test
+    void testNoMate() {
+
+        Board board = Converter.convertStringToBoard("4k3/8/8/8/8/8/8/4K2R w - - 0 1");
+        Options options = new Options();
+        options.setMateSearch(2);
+
+        assertTrue(mateSearch.getRecommendedMoves(board, options).isEmpty());
+    }
+}
@@ -0,0 +1,55 @@
+package de.flyndre.flengine;
+
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.moveprovider.minmax.MaterialTable;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MaterialTableTest {
+
+    @Test
+    void testMaterialKey() {
+
+        Board board = Converter.convertStringToBoard("4k3/8/8/8/8/8/8/2B1KN2 w - - 0 1");
+        assertEquals(MaterialTable.materialKey("KBNvK", Color.WHITE), board.getMaterialKey());
+        board.playMove(Converter.convertStringToMove("e8d7"));
+        assertEquals(MaterialTable.materialKey("KBNvK", Color.WHITE), board.getMaterialKey());
+        assertEquals(board.getMaterialKey(), board.deepClone().getMaterialKey());
+    }
+
+    @Test
+    void testInsufficientMaterial() {
+
+        assertEquals(0, MaterialTable.recognize(Converter.convertStringToBoard("4k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+        assertEquals(0, MaterialTable.recognize(Converter.convertStringToBoard("4k3/8/8/8/8/8/8/1N2K1N1 w - - 0 1")));
+        assertEquals(0, MaterialTable.recognize(Converter.convertStringToBoard("4k3/8/2b5/8/8/8/8/4K3 b - - 0 1")));
+        assertNull(MaterialTable.recognize(Converter.convertStringToBoard("4k3/8/8/8/8/8/8/2B1KN2 w - - 0 1")));
+    }
+
+    @Test
+    void testKingAndPawn() {
+
+        // the black king is outside the square of the pawn
+        Board outsideSquare = Converter.convertStringToBoard("8/8/8/P7/8/8/7k/4K3 w - - 0 1");
+        assertTrue(MaterialTable.recognize(outsideSquare) >= MaterialTable.KNOWN_WIN);
+        // the black king to move reaches the square
+        Board insideSquare = Converter.convertStringToBoard("8/8/8/1P2k3/8/8/8/4K3 b - - 0 1");
+        assertNull(MaterialTable.recognize(insideSquare));
+        // the black king in front of the rook pawn holds the draw
+        Board rookPawn = Converter.convertStringToBoard("k7/8/8/8/8/8/P7/4K3 b - - 0 1");
+        assertEquals(0, MaterialTable.recognize(rookPawn));
+    }
+
+    @Test
+    void testBishopAndKnight() {
+
+        // the light squared bishop has to mate on a8 or h1
+        Board rightCorner = Converter.convertStringToBoard("k7/8/8/8/8/8/8/3BKN2 w - - 0 1");
+        Board wrongCorner = Converter.convertStringToBoard("7k/8/8/8/8/8/8/3BKN2 w - - 0 1");
+        assertTrue(MaterialTable.evaluate(rightCorner) > MaterialTable.evaluate(wrongCorner));
+        assertTrue(MaterialTable.evaluate(wrongCorner) >= MaterialTable.KNOWN_WIN);
+    }
+}
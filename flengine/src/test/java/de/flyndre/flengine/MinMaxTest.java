@@ -4,17 +4,59 @@ import de.flyndre.flengine.converter.Converter;
 import de.flyndre.flengine.datamodel.Board;
 import de.flyndre.flengine.datamodel.Move;
 import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.datamodel.enums.Difficulty;
 import de.flyndre.flengine.moveprovider.minmax.MinMax;
 import de.flyndre.flengine.rules.Rule;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class MinMaxTest {
 
+    /**
+     * Runs a search while the output to the gui is captured.
+     * @param search the search, which gets the output captured so far, for example to wait for a progress report.
+     * @return the complete output.
+     */
+    private static String captureOutput(Consumer<ByteArrayOutputStream> search) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(output, true));
+        try {
+            search.accept(output);
+        } finally {
+            System.setOut(stdout);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Waits up to ten seconds until the captured output contains a line with the given start.
+     * @return whether the line was written.
+     */
+    private static boolean awaitLine(ByteArrayOutputStream output, String start) {
+        for (int i = 0; i < 200; i++) {
+            if (output.toString().lines().anyMatch(line -> line.startsWith(start))) {
+                return true;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
     @Test
     void testPawnMoves() throws ExecutionException, InterruptedException {
 
@@ -25,4 +67,234 @@ public class MinMaxTest {
         List<Move> moves = minmax.getRecommendedMoves(board, options);
         assertFalse(moves.isEmpty());
     }
+
+    @Test
+    void testQuiescenceAvoidsLosingCapture() {
+
+        // the pawn on d5 is covered by the pawn on e6, so taking it loses the queen
+        Board board = Converter.convertStringToBoard("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1");
+        Options options = new Options();
+        options.setRecursionDepth(1);
+        List<Move> moves = new MinMax().getRecommendedMoves(board, options);
+        assertNotEquals(Converter.convertStringToMove("d1d5"), moves.get(0));
+    }
+
+    @Test
+    void testFindsMateInOne() {
+
+        Board board = Converter.convertStringToBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        Options options = new Options();
+        options.setRecursionDepth(2);
+        List<Move> moves = new MinMax().getRecommendedMoves(board, options);
+        assertEquals(Converter.convertStringToMove("a1a8"), moves.get(0));
+    }
+
+    @Test
+    void testConcurrentSearchesOfDifferentPositions() {
+
+        MinMax minmax = new MinMax();
+        Board white = Converter.convertStringToBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        Board black = Converter.convertStringToBoard("r5k1/5ppp/8/8/8/8/5PPP/6K1 b - - 0 1");
+        Options whiteOptions = new Options();
+        whiteOptions.setRecursionDepth(2);
+        Options blackOptions = new Options();
+        blackOptions.setRecursionDepth(2);
+
+        var whiteMoves = CompletableFuture.supplyAsync(() -> minmax.getRecommendedMoves(white, whiteOptions));
+        var blackMoves = CompletableFuture.supplyAsync(() -> minmax.getRecommendedMoves(black, blackOptions));
+
+        assertEquals(Converter.convertStringToMove("a1a8"), whiteMoves.join().get(0));
+        assertEquals(Converter.convertStringToMove("a8a1"), blackMoves.join().get(0));
+    }
+
+    @Test
+    void testFindsMateInOneWithNnue() {
+
+        Board board = Converter.convertStringToBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        Options options = new Options();
+        options.setRecursionDepth(2);
+        options.setUseNnue(true);
+        List<Move> moves = new MinMax().getRecommendedMoves(board, options);
+        assertEquals(Converter.convertStringToMove("a1a8"), moves.get(0));
+    }
+
+    @Test
+    void testKeepsPrincipalVariationUntilNewGame() {
+
+        Board board = Converter.convertStringToBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        Options options = new Options();
+        options.setRecursionDepth(2);
+        MinMax minmax = new MinMax();
+        List<Move> moves = minmax.getRecommendedMoves(board, options);
+        assertEquals(moves.get(0), minmax.getPrincipalVariation(board, 2).get(0));
+        minmax.newGame();
+        assertTrue(minmax.getPrincipalVariation(board, 2).isEmpty());
+    }
+
+    @Test
+    void testPonderSearchWaitsForPonderhit() throws InterruptedException {
+
+        Board board = Converter.convertStringToBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        Options options = new Options();
+        options.setMoveTime(100);
+        options.setPondering(true);
+        Thread ponderhit = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ignored) {
+            }
+            options.ponderHit();
+        });
+        ponderhit.start();
+        List<Move> moves = new MinMax().getRecommendedMoves(board, options);
+        options.awaitPonderEnd();
+        assertFalse(options.isPondering());
+        assertEquals(Converter.convertStringToMove("a1a8"), moves.get(0));
+    }
+
+    @Test
+    void testStopReturnsBestMoveSoFar() {
+
+        Board board = Converter.convertStringToBoard("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQ1RK1 b kq - 0 1");
+        Options options = new Options();
+        options.setInfinite(true);
+        captureOutput(out -> {
+            CompletableFuture<List<Move>> search = CompletableFuture.supplyAsync(() -> new MinMax().getRecommendedMoves(board, options));
+            // the search is stopped once it reported its first iteration, so that it has a best move
+            assertTrue(awaitLine(out, "info depth"));
+            long stopTime = System.currentTimeMillis();
+            options.stop();
+            List<Move> moves = search.orTimeout(10, TimeUnit.SECONDS).join();
+            assertTrue(System.currentTimeMillis() - stopTime < 2000);
+            assertFalse(moves.isEmpty());
+        });
+    }
+
+    @Test
+    void testMultiPvKeepsBestMove() {
+
+        Board board = Converter.convertStringToBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        Options options = new Options();
+        options.setRecursionDepth(3);
+        options.setMultiPv(3);
+        List<Move> moves = new MinMax().getRecommendedMoves(board, options);
+        assertEquals(Converter.convertStringToMove("a1a8"), moves.get(0));
+        assertEquals(new Rule().getLegalMoves(board, board.getNextColor()).size(), moves.size());
+    }
+
+    @Test
+    void testReportsPrincipalVariation() {
+
+        Board board = Converter.convertStringToBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        Options options = new Options();
+        options.setRecursionDepth(2);
+        String output = captureOutput(out -> new MinMax().getRecommendedMoves(board, options));
+        String lastInfo = output.lines().filter(line -> line.startsWith("info depth 2")).reduce((a, b) -> b).orElseThrow();
+        assertTrue(lastInfo.contains(" score mate 1 "));
+        assertTrue(lastInfo.contains(" nodes "));
+        assertTrue(lastInfo.endsWith(" pv a1a8"));
+    }
+
+    @Test
+    void testEasySearchIsLimitedByDifficulty() {
+
+        Board board = Converter.convertStringToBoard("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQ1RK1 b kq - 0 1");
+        Options options = new Options();
+        options.setDifficulty(Difficulty.EASY);
+        options.setRecursionDepth(6);
+        String output = captureOutput(out -> assertFalse(new MinMax().getRecommendedMoves(board, options).isEmpty()));
+        assertTrue(output.lines().noneMatch(line -> line.startsWith("info depth 3")));
+    }
+
+    @Test
+    void testInfiniteSearchIsNotLimitedByDifficulty() {
+
+        Board board = Converter.convertStringToBoard("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQ1RK1 b kq - 0 1");
+        Options options = new Options();
+        options.setDifficulty(Difficulty.EASY);
+        options.setInfinite(true);
+        String output = captureOutput(out -> {
+            var search = CompletableFuture.supplyAsync(() -> new MinMax().getRecommendedMoves(board, options));
+            // the search has to go on after the depth of the difficulty until the gui stops it
+            awaitLine(out, "info depth 3");
+            assertFalse(search.isDone());
+            options.stop();
+            assertFalse(search.join().isEmpty());
+        });
+        assertTrue(output.lines().anyMatch(line -> line.startsWith("info depth 3")));
+    }
+
+    @Test
+    void testAspirationWindowResearchesFailHigh() {
+
+        // the knight fork which wins the queen is only found in the second iteration, far above its window
+        Board board = Converter.convertStringToBoard("q3k3/8/8/1N6/8/8/7K/8 w - - 0 1");
+        Options options = new Options();
+        options.setRecursionDepth(3);
+        String output = captureOutput(out -> assertEquals(Converter.convertStringToMove("b5c7"),
+                new MinMax().getRecommendedMoves(board, options).get(0)));
+        assertTrue(output.lines().anyMatch(line -> line.startsWith("info depth 2 score ") && line.endsWith(" lowerbound")));
+        String lastInfo = output.lines().filter(line -> line.startsWith("info depth 3")).reduce((a, b) -> b).orElseThrow();
+        assertTrue(lastInfo.endsWith(" pv b5c7 e8d7 c7a8") || lastInfo.endsWith(" pv b5c7 e8d8 c7a8"));
+    }
+
+    @Test
+    void testAspirationWindowResearchesFailLow() {
+
+        // the king has to walk into the mate, which is only seen in the third iteration
+        Board board = Converter.convertStringToBoard("1r5k/8/8/8/8/8/r7/7K w - - 0 1");
+        Options options = new Options();
+        options.setRecursionDepth(3);
+        String output = captureOutput(out -> new MinMax().getRecommendedMoves(board, options));
+        assertTrue(output.lines().anyMatch(line -> line.startsWith("info depth 3 score ") && line.endsWith(" upperbound")));
+        String lastInfo = output.lines().filter(line -> line.startsWith("info depth 3")).reduce((a, b) -> b).orElseThrow();
+        assertTrue(lastInfo.contains(" score mate -1 "));
+        assertTrue(lastInfo.endsWith(" pv h1g1 b8b1"));
+    }
+
+    @Test
+    void testParallelTasksSearchTheWindowOfTheRoot() {
+
+        // the quiet first move of the mate is only found if the forked tasks get the aspiration window the right way round
+        Board board = Converter.convertStringToBoard("7k/8/2p5/8/8/8/1R4PP/R5K1 w - - 0 1");
+        Options options = new Options();
+        options.setRecursionDepth(4);
+        String output = captureOutput(out -> assertEquals(Converter.convertStringToMove("b2b7"),
+                new MinMax().getRecommendedMoves(board, options).get(0)));
+        String lastInfo = output.lines().filter(line -> line.startsWith("info depth 4")).reduce((a, b) -> b).orElseThrow();
+        assertTrue(lastInfo.contains(" score mate 2 "));
+    }
+
+    @Test
+    void testReductionsKeepSkewer() {
+
+        // the check which wins the queen behind the king is a quiet move, which must neither be pruned nor reduced
+        Board white = Converter.convertStringToBoard("q7/8/8/3k4/8/8/8/4KB2 w - - 0 1");
+        Board black = Converter.convertStringToBoard("4kb2/8/8/8/3K4/8/8/Q7 b - - 0 1");
+        Options options = new Options();
+        options.setRecursionDepth(5);
+        assertEquals(Converter.convertStringToMove("f1g2"), new MinMax().getRecommendedMoves(white, options).get(0));
+        assertEquals(Converter.convertStringToMove("f8g7"), new MinMax().getRecommendedMoves(black, options).get(0));
+    }
+
+    @Test
+    void testReductionsKeepQuietMateInTwo() {
+
+        Board board = Converter.convertStringToBoard("7k/8/2p5/8/8/8/1R4PP/R5K1 w - - 0 1");
+        Options options = new Options();
+        options.setRecursionDepth(5);
+        String output = captureOutput(out -> assertEquals(Converter.convertStringToMove("b2b7"),
+                new MinMax().getRecommendedMoves(board, options).get(0)));
+        String lastInfo = output.lines().filter(line -> line.startsWith("info depth 5")).reduce((a, b) -> b).orElseThrow();
+        assertTrue(lastInfo.contains(" score mate 2 "));
+    }
+
+    @Test
+    void testReductionsKeepMateInMiddlegame() {
+
+        Board board = Converter.convertStringToBoard("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4");
+        Options options = new Options();
+        options.setRecursionDepth(3);
+        assertEquals(Converter.convertStringToMove("h5f7"), new MinMax().getRecommendedMoves(board, options).get(0));
+    }
 }
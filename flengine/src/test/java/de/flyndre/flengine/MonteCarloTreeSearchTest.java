@@ -0,0 +1,46 @@
+package de.flyndre.flengine;
+
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.moveprovider.mcts.MonteCarloTreeSearch;
+import de.flyndre.flengine.rules.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchTest {
+
+    @Test
+    void testReturnsAllLegalMoves() {
+
+        Board board = Converter.convertStringToBoard("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        Options options = new Options();
+        options.setMctsPlayouts(100);
+        List<Move> moves = new MonteCarloTreeSearch().getRecommendedMoves(board, options);
+        assertEquals(new HashSet<>(new Rule().getLegalMoves(board, board.getNextColor())), new HashSet<>(moves));
+    }
+
+    @Test
+    void testFindsMateInOne() {
+
+        Board board = Converter.convertStringToBoard("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        Options options = new Options();
+        options.setMctsPlayouts(500);
+        List<Move> moves = new MonteCarloTreeSearch().getRecommendedMoves(board, options);
+        assertEquals(Converter.convertStringToMove("a1a8"), moves.get(0));
+    }
+
+    @Test
+    void testNoMovesWhenMated() {
+
+        Board board = Converter.convertStringToBoard("R5k1/5ppp/8/8/8/8/5PPP/6K1 b - - 0 1");
+        Options options = new Options();
+        options.setMctsPlayouts(10);
+        assertTrue(new MonteCarloTreeSearch().getRecommendedMoves(board, options).isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package de.flyndre.flengine;
+
+import de.flyndre.flengine.controller.MoveCache;
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.datamodel.enums.Difficulty;
+import de.flyndre.flengine.rules.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveCacheTest {
+
+    private final Rule rule = new Rule();
+
+    @Test
+    void testServesPositionsSearchedDeepEnough() {
+
+        Board board = Converter.convertStringToBoard("startpos");
+        List<Move> moves = rule.getLegalMoves(board, Color.WHITE);
+        MoveCache cache = new MoveCache(16);
+        Options options = new Options();
+        options.setRecursionDepth(3);
+
+        assertNull(cache.get(board, options));
+        cache.put(board, options, moves);
+        assertEquals(moves, cache.get(board, options));
+
+        options.setRecursionDepth(2);
+        assertEquals(moves, cache.get(board, options));
+        options.setRecursionDepth(4);
+        assertNull(cache.get(board, options));
+        options.setRecursionDepth(3);
+        options.setDifficulty(Difficulty.HARD);
+        assertNull(cache.get(board, options));
+
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    void testSearchesOnTheClockAreNotCached() {
+
+        Board board = Converter.convertStringToBoard("startpos");
+        MoveCache cache = new MoveCache(16);
+        Options options = new Options();
+        options.setWhiteTime(60000);
+
+        cache.put(board, options, rule.getLegalMoves(board, Color.WHITE));
+        assertEquals(0, cache.size());
+
+        Options stopped = new Options();
+        stopped.stop();
+        cache.put(board, stopped, rule.getLegalMoves(board, Color.WHITE));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedPositionIsDropped() {
+
+        Board first = Converter.convertStringToBoard("startpos");
+        Board second = Converter.convertStringToBoard("4k3/8/8/8/8/8/8/3QK3 w - - 0 1");
+        Board third = Converter.convertStringToBoard("4k3/8/8/8/8/8/8/3RK3 w - - 0 1");
+        MoveCache cache = new MoveCache(2);
+        Options options = new Options();
+
+        cache.put(first, options, rule.getLegalMoves(first, Color.WHITE));
+        cache.put(second, options, rule.getLegalMoves(second, Color.WHITE));
+        assertNotNull(cache.get(first, options));
+        cache.put(third, options, rule.getLegalMoves(third, Color.WHITE));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(first, options));
+        assertNull(cache.get(second, options));
+
+        cache.resize(1);
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(first, options));
+        assertNull(cache.get(third, options));
+    }
+}
@@ -0,0 +1,68 @@
+package de.flyndre.flengine;
+
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.moveprovider.minmax.MoveOrdering;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveOrderingTest {
+
+    private final Board board = Converter.convertStringToBoard("startpos");
+    private final Move e2e4 = Converter.convertStringToMove("e2e4");
+    private final Move d2d4 = Converter.convertStringToMove("d2d4");
+    private final Move g1f3 = Converter.convertStringToMove("g1f3");
+    private final Move b1c3 = Converter.convertStringToMove("b1c3");
+    private final Move a2a3 = Converter.convertStringToMove("a2a3");
+
+    @Test
+    void testKillersAreOrderedByTheirLevel() {
+
+        MoveOrdering moveOrdering = new MoveOrdering();
+        moveOrdering.updateCutoff(board, g1f3, 2, 1, null, List.of());
+        moveOrdering.updateCutoff(board, b1c3, 2, 1, null, List.of());
+
+        assertEquals(List.of(b1c3, g1f3, a2a3), moveOrdering.order(board, List.of(a2a3, g1f3, b1c3), 2, null, null));
+        assertEquals(a2a3, moveOrdering.order(board, List.of(a2a3, g1f3, b1c3), 2, null, a2a3).get(0));
+        assertEquals(a2a3, moveOrdering.order(board, List.of(g1f3, b1c3, a2a3), 3, null, null).get(2));
+    }
+
+    @Test
+    void testHistoryRewardsCutoffsAndPunishesTriedMoves() {
+
+        MoveOrdering moveOrdering = new MoveOrdering();
+        moveOrdering.updateCutoff(board, d2d4, 0, 4, null, List.of(e2e4));
+
+        assertEquals(List.of(d2d4, a2a3, e2e4), moveOrdering.order(board, List.of(e2e4, a2a3, d2d4), 1, null, null));
+    }
+
+    @Test
+    void testAgeingClearsKillersAndKeepsHistory() {
+
+        MoveOrdering moveOrdering = new MoveOrdering();
+        moveOrdering.updateCutoff(board, g1f3, 0, 1, null, List.of());
+        moveOrdering.updateCutoff(board, d2d4, 5, 4, null, List.of());
+        assertEquals(g1f3, moveOrdering.order(board, List.of(d2d4, g1f3), 0, null, null).get(0));
+
+        moveOrdering.age();
+
+        assertEquals(d2d4, moveOrdering.order(board, List.of(g1f3, d2d4), 0, null, null).get(0));
+    }
+
+    @Test
+    void testCounterMoveAnswersPreviousMove() {
+
+        Board afterE5 = Converter.convertStringToBoard("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2");
+        Move e7e5 = Converter.convertStringToMove("e7e5");
+        MoveOrdering moveOrdering = new MoveOrdering();
+        moveOrdering.updateCutoff(afterE5, g1f3, 1, 1, e7e5, List.of());
+        moveOrdering.updateCutoff(afterE5, b1c3, 9, 8, null, List.of());
+
+        assertEquals(g1f3, moveOrdering.order(afterE5, List.of(b1c3, g1f3), 7, e7e5, null).get(0));
+        assertEquals(b1c3, moveOrdering.order(afterE5, List.of(g1f3, b1c3), 7, null, null).get(0));
+    }
+}
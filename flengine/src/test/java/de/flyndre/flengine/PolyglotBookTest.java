@@ -0,0 +1,121 @@
+package de.flyndre.flengine;
+
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.moveprovider.PolyglotBook;
+import de.flyndre.flengine.moveprovider.PolyglotKey;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolyglotBookTest {
+
+    private final PolyglotKey key = createKey();
+
+    @Test
+    void testFindsWeightedMovesOfPosition() throws IOException {
+
+        Board start = Converter.convertStringToBoard("startpos");
+        Board castling = Converter.convertStringToBoard("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+        List<long[]> entries = new ArrayList<>();
+        entries.add(new long[]{key.hash(start), encode(1, 4, 3, 4), 30});
+        entries.add(new long[]{key.hash(start), encode(1, 3, 3, 3), 10});
+        // e2e5 is not legal, so the entry belongs to another position with the same key
+        entries.add(new long[]{key.hash(start), encode(1, 4, 4, 4), 100});
+        // castling is stored as the king capturing its rook
+        entries.add(new long[]{key.hash(castling), encode(0, 4, 0, 7), 1});
+        Path book = writeBook(entries);
+        Options options = new Options();
+        options.setBookFile(book.toString());
+        PolyglotBook polyglotBook = new PolyglotBook(key);
+
+        int kingsPawnFirst = 0;
+        for (int i = 0; i < 400; i++) {
+            List<Move> moves = polyglotBook.getRecommendedMoves(start, options);
+            assertEquals(Set.of(Converter.convertStringToMove("e2e4"), Converter.convertStringToMove("d2d4")), Set.copyOf(moves));
+            if (moves.get(0).equals(Converter.convertStringToMove("e2e4"))) {
+                kingsPawnFirst++;
+            }
+        }
+        assertTrue(kingsPawnFirst > 200 && kingsPawnFirst < 400);
+
+        assertEquals(List.of(Converter.convertStringToMove("e1g1")), polyglotBook.getRecommendedMoves(castling, options));
+        assertTrue(polyglotBook.getRecommendedMoves(Converter.convertStringToBoard("4k3/8/8/8/8/8/8/3QK3 w - - 0 1"), options).isEmpty());
+        assertTrue(polyglotBook.getRecommendedMoves(start, new Options()).isEmpty());
+        Files.delete(book);
+    }
+
+    @Test
+    void testDefaultKeysMatchPolyglotReference() {
+
+        // the keys of the positions given in the specification of the Polyglot format
+        PolyglotKey polyglot = PolyglotKey.getDefault();
+        assertEquals(0x463b96181691fc9cL, polyglot.hash(Converter.convertStringToBoard("startpos")));
+        assertEquals(0x823c9b50fd114196L, polyglot.hash(Converter.convertStringToBoard(
+                "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1")));
+        assertEquals(0x0756b94461c50fb0L, polyglot.hash(Converter.convertStringToBoard(
+                "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2")));
+        assertEquals(0x662fafb965db29d4L, polyglot.hash(Converter.convertStringToBoard(
+                "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2")));
+        assertEquals(0x22a48b5a8e47ff78L, polyglot.hash(Converter.convertStringToBoard(
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3")));
+        assertEquals(0x652a607ca3f242c1L, polyglot.hash(Converter.convertStringToBoard(
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3")));
+        assertEquals(0x00fdd303c946bdd9L, polyglot.hash(Converter.convertStringToBoard(
+                "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4")));
+        assertEquals(0x3c8123ea7b067637L, polyglot.hash(Converter.convertStringToBoard(
+                "rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3")));
+        assertEquals(0x5c3f9b829b279560L, polyglot.hash(Converter.convertStringToBoard(
+                "rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4")));
+    }
+
+    @Test
+    void testEnPassantOnlyCountsIfPawnCanCapture() {
+
+        assertNotEquals(key.hash(Converter.convertStringToBoard("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1")),
+                key.hash(Converter.convertStringToBoard("4k3/8/8/3pP3/8/8/8/4K3 w - - 0 1")));
+        assertEquals(key.hash(Converter.convertStringToBoard("4k3/8/8/3p4/8/8/8/4K3 w - d6 0 1")),
+                key.hash(Converter.convertStringToBoard("4k3/8/8/3p4/8/8/8/4K3 w - - 0 1")));
+        assertNotEquals(key.hash(Converter.convertStringToBoard("4k3/8/8/3p4/8/8/8/4K3 w - - 0 1")),
+                key.hash(Converter.convertStringToBoard("4k3/8/8/3p4/8/8/8/4K3 b - - 0 1")));
+    }
+
+    private static PolyglotKey createKey() {
+        SplittableRandom random = new SplittableRandom(1);
+        long[] numbers = new long[PolyglotKey.RANDOM_COUNT];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = random.nextLong();
+        }
+        return new PolyglotKey(numbers);
+    }
+
+    private static long encode(int fromLine, int fromRow, int toLine, int toRow) {
+        return toRow | toLine << 3 | fromRow << 6 | fromLine << 9;
+    }
+
+    private static Path writeBook(List<long[]> entries) throws IOException {
+        Path book = Files.createTempFile("flengine", ".bin");
+        entries.sort(Comparator.comparing(entry -> entry[0], Long::compareUnsigned));
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(book))) {
+            for (long[] entry : entries) {
+                output.writeLong(entry[0]);
+                output.writeShort((int) entry[1]);
+                output.writeShort((int) entry[2]);
+                output.writeInt(0);
+            }
+        }
+        return book;
+    }
+}
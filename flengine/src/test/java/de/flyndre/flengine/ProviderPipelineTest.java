@@ -0,0 +1,92 @@
+package de.flyndre.flengine;
+
+import de.flyndre.flengine.controller.ProviderPipeline;
+import de.flyndre.flengine.controller.ProviderStage;
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.moveprovider.MoveProvider;
+import de.flyndre.flengine.moveprovider.Stub;
+import de.flyndre.flengine.rules.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProviderPipelineTest {
+
+    private final Map<String, MoveProvider> moveProviders = Map.of(
+            "book", new Stub(new Rule()),
+            "openings", new Stub(new Rule()),
+            "endgame", new Stub(new Rule())
+    );
+
+    @Test
+    void testLoadsBundledProfiles() {
+
+        ProviderPipeline pipeline = ProviderPipeline.load("default", moveProviders);
+        assertEquals(List.of("book", "openings", "endgame"), pipeline.getStages().stream().map(ProviderStage::getName).toList());
+
+        ProviderPipeline offline = ProviderPipeline.load("offline", moveProviders);
+        assertEquals(List.of("book"), offline.getStages().stream().filter(ProviderStage::isEnabled).map(ProviderStage::getName).toList());
+
+        ProviderPipeline missing = ProviderPipeline.load("/does/not/exist.properties", moveProviders);
+        assertEquals("/does/not/exist.properties", missing.getConfiguration());
+        assertEquals(List.of("book", "openings", "endgame"), missing.getStages().stream().map(ProviderStage::getName).toList());
+    }
+
+    @Test
+    void testStagesAreApplicableByPieces() {
+
+        Properties properties = new Properties();
+        properties.setProperty("providers", "endgame, unknown");
+        properties.setProperty("endgame.maxPieces", "7");
+        properties.setProperty("endgame.budget", "500");
+
+        List<ProviderStage> stages = ProviderPipeline.parse(properties, moveProviders);
+
+        assertEquals(1, stages.size());
+        assertEquals(500, stages.get(0).getBudget());
+        assertFalse(stages.get(0).accepts(Converter.convertStringToBoard("startpos")));
+        assertTrue(stages.get(0).accepts(Converter.convertStringToBoard("4k3/8/8/8/8/8/8/3QK3 w - - 0 1")));
+    }
+
+    @Test
+    void testStagesAreApplicableByFullMoveNumber() {
+
+        ProviderStage stage = new ProviderStage("openings", new Stub(new Rule()), true, 100, 0, 2, 0, 32);
+        Board board = Converter.convertStringToBoard("startpos");
+        List.of("e2e4", "e7e5").forEach(move -> board.playMove(Converter.convertStringToMove(move)));
+        assertEquals(2, board.getMoveCounter());
+        assertTrue(stage.accepts(board));
+
+        board.playMove(Converter.convertStringToMove("g1f3"));
+        assertTrue(stage.accepts(board));
+        board.playMove(Converter.convertStringToMove("b8c6"));
+        assertFalse(stage.accepts(board));
+    }
+
+    @Test
+    void testSlowProviderIsSkipped() {
+
+        Board board = Converter.convertStringToBoard("startpos");
+        ProviderStage stage = new ProviderStage("slow", new Stub(new Rule()), true, 100, 0, Integer.MAX_VALUE, 0, 32);
+
+        stage.recordRequest(500, false);
+        stage.recordRequest(50, false);
+        stage.recordRequest(500, false);
+        stage.recordRequest(500, true);
+        assertTrue(stage.accepts(board));
+
+        stage.recordRequest(500, false);
+        for (int i = 0; i < 16; i++) {
+            assertFalse(stage.accepts(board));
+        }
+        assertTrue(stage.accepts(board));
+        assertEquals(5, stage.getRequests());
+        assertEquals(4, stage.getMisses());
+        assertEquals(410, stage.getAverageLatency());
+    }
+}
@@ -93,4 +93,37 @@ public class RuleTest {
 
         assertFalse(moves.contains(new Move(new Field(Line.FOUR, Row.E), new Field(Line.FIVE, Row.F))));
     }
+
+    @Test
+    void testPseudoLegalCapturesOfPinnedPiece() {
+
+        Board board = Converter.convertStringToBoard("k3r3/7p/8/8/3p4/8/4N3/4K2R w - - 0 1");
+        Move pinnedCapture = new Move(new Field(Line.TWO, Row.E), new Field(Line.FOUR, Row.D));
+        Move rookCapture = new Move(new Field(Line.ONE, Row.H), new Field(Line.SEVEN, Row.H));
+
+        List<Move> captures = rule.getPseudoLegalCaptures(board, Color.WHITE);
+
+        assertEquals(2, captures.size());
+        assertTrue(captures.contains(pinnedCapture));
+        assertTrue(captures.contains(rookCapture));
+        assertEquals(List.of(rookCapture), rule.getLegalCaptures(board, Color.WHITE));
+
+        board.playMove(pinnedCapture);
+
+        assertTrue(rule.isChecked(board, Color.WHITE));
+    }
+
+    @Test
+    void testCheckAfterKingMove() {
+
+        Board board = Converter.convertStringToBoard("4k3/8/8/8/8/8/5r2/4K3 w - - 0 1");
+
+        assertFalse(rule.isChecked(board, Color.WHITE));
+
+        board.playMove(new Move(new Field(Line.ONE, Row.E), new Field(Line.ONE, Row.D)));
+        board.playMove(new Move(new Field(Line.TWO, Row.F), new Field(Line.TWO, Row.D)));
+
+        assertTrue(rule.isChecked(board, Color.WHITE));
+        assertFalse(rule.isChecked(board, Color.BLACK));
+    }
 }
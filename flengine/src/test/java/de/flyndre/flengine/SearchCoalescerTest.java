@@ -0,0 +1,98 @@
+package de.flyndre.flengine;
+
+import de.flyndre.flengine.controller.SearchCoalescer;
+import de.flyndre.flengine.converter.Converter;
+import de.flyndre.flengine.datamodel.Board;
+import de.flyndre.flengine.datamodel.Move;
+import de.flyndre.flengine.datamodel.Options;
+import de.flyndre.flengine.datamodel.enums.Color;
+import de.flyndre.flengine.rules.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchCoalescerTest {
+
+    private final Board board = Converter.convertStringToBoard("startpos");
+    private final List<Move> moves = new Rule().getLegalMoves(board, Color.WHITE);
+
+    @Test
+    void testConcurrentRequestsShareSearch() {
+
+        SearchCoalescer coalescer = new SearchCoalescer();
+        CompletableFuture<List<Move>> running = new CompletableFuture<>();
+        AtomicInteger searches = new AtomicInteger();
+
+        SearchCoalescer.Search first = coalescer.search(board, new Options(), () -> {
+            searches.incrementAndGet();
+            return running;
+        });
+        SearchCoalescer.Search second = coalescer.search(board.deepClone(), new Options(), () -> {
+            searches.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertFalse(first.isShared());
+        assertTrue(second.isShared());
+        running.complete(moves);
+        assertEquals(moves, second.getMoves().join());
+        assertEquals(1, searches.get());
+        assertEquals(0, coalescer.size());
+    }
+
+    @Test
+    void testDeeperAndTimedRequestsSearchOnTheirOwn() {
+
+        SearchCoalescer coalescer = new SearchCoalescer();
+        coalescer.search(board, new Options(), CompletableFuture::new);
+
+        Options deeper = new Options();
+        deeper.setRecursionDepth(6);
+        assertFalse(coalescer.search(board, deeper, CompletableFuture::new).isShared());
+
+        Options timed = new Options();
+        timed.setWhiteTime(60000);
+        assertFalse(coalescer.search(board, timed, CompletableFuture::new).isShared());
+
+        Options shallower = new Options();
+        shallower.setRecursionDepth(2);
+        assertTrue(coalescer.search(board, shallower, CompletableFuture::new).isShared());
+    }
+
+    @Test
+    void testSharedSearchIsCancelledByItsLastRequest() {
+
+        SearchCoalescer coalescer = new SearchCoalescer();
+        Options ownerOptions = new Options();
+        SearchCoalescer.Search owner = coalescer.search(board, ownerOptions, CompletableFuture::new);
+        SearchCoalescer.Search attached = coalescer.search(board, new Options(), CompletableFuture::new);
+
+        owner.cancel();
+        assertFalse(ownerOptions.isStopped());
+        assertEquals(1, coalescer.size());
+
+        attached.cancel();
+        assertTrue(ownerOptions.isStopped());
+        assertEquals(0, coalescer.size());
+    }
+
+    @Test
+    void testStoppedSearchIsNotShared() {
+
+        SearchCoalescer coalescer = new SearchCoalescer();
+        Options stoppedOptions = new Options();
+        CompletableFuture<List<Move>> running = new CompletableFuture<>();
+        coalescer.search(board, stoppedOptions, () -> running);
+
+        SearchCoalescer.Search attached = coalescer.search(board, new Options(),
+                () -> CompletableFuture.completedFuture(moves));
+        stoppedOptions.stop();
+        running.complete(List.of(moves.get(0)));
+
+        assertEquals(moves, attached.getMoves().join());
+    }
+}